@@ -10,25 +10,44 @@ package com.github.maximevw.moka;
 
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.maximevw.moka.entities.AccountState;
 import com.github.maximevw.moka.entities.InitAccountData;
+import com.github.maximevw.moka.entities.ResourceSample;
+import com.github.maximevw.moka.entities.StructLog;
 import com.github.maximevw.moka.entities.TestingAccount;
+import com.github.maximevw.moka.entities.TraceOptions;
+import com.github.maximevw.moka.entities.TraceSummary;
 import com.github.maximevw.moka.enums.ChainHardForkRule;
 import com.github.maximevw.moka.enums.GanacheVersionLevel;
 import com.github.maximevw.moka.enums.Instamine;
 import com.github.maximevw.moka.enums.Network;
+import com.github.maximevw.moka.fork.ContainerForks;
+import com.github.maximevw.moka.fork.ForkSource;
+import com.github.maximevw.moka.monitoring.MemoryWatchdog;
+import com.github.maximevw.moka.monitoring.ResourceSampler;
+import com.github.maximevw.moka.monitoring.ResourceTimeSeries;
+import com.github.maximevw.moka.rpc.CachingHttpService;
+import com.github.maximevw.moka.rpc.GanacheJsonRpc;
+import com.github.maximevw.moka.rpc.ResponseCache;
+import com.github.maximevw.moka.trace.TransactionTracer;
+import com.github.maximevw.moka.tuning.ContainerTuning;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.testcontainers.DockerClientFactory;
 import org.testcontainers.containers.BindMode;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.wait.strategy.HostPortWaitStrategy;
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.DefaultBlockParameter;
 import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import org.web3j.protocol.http.HttpService;
 import org.web3j.utils.Convert;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -39,11 +58,16 @@ import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static com.github.maximevw.moka.enums.GanacheVersionLevel.V6;
@@ -72,6 +96,17 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 	private static final int STARTUP_TIMEOUT_IN_SECONDS = 30;
 	private static final int DEFAULT_PORT = 8545;
 	private static final String COMMA = ",";
+	private static final String CONTAINER_DB_PATH = "/db_ganache";
+	private static final String CONTAINER_TMP_PATH = "/tmp";
+	private static final String NODE_OPTIONS_ENV = "NODE_OPTIONS";
+	private static final Duration WATCHDOG_SAMPLING_INTERVAL = Duration.ofSeconds(5);
+	private static final int WATCHDOG_SAMPLING_CAPACITY = 720;
+	private static final int GRACEFUL_STOP_TIMEOUT_IN_SECONDS = 10;
+	private static final ExecutorService TEARDOWN_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+		final Thread thread = new Thread(runnable, "ganache-teardown");
+		thread.setDaemon(true);
+		return thread;
+	});
 	private static final String HTTP_HEADER_REGEX =
 		"^[a-zA-Z0-9\\-_]*: ?[a-zA-Z0-9_ :;.,/\"'?!(){}\\[\\]@<>=\\-+*#$&`|~^%]*$";
 
@@ -82,10 +117,27 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 	private final Map<Integer, TestingAccount> testingAccounts = new HashMap<>();
 
 	private Web3j web3j;
+	private GanacheJsonRpc ganacheJsonRpc;
+	/** The port Ganache listens on inside the container. */
+	@Getter
 	private int ganachePort = DEFAULT_PORT;
+	/**
+	 * The version level of the Ganache image.
+	 */
+	@Getter
 	private final GanacheVersionLevel ganacheVersionLevel;
 	private final List<String> ganacheOptions = new ArrayList<>();
 	private final List<String> accountsAliases = new ArrayList<>();
+	private boolean databaseConfigured;
+	private ResourceSampler resourceSampler;
+	private MemoryWatchdog memoryWatchdog;
+	private boolean persistentDatabase;
+	private boolean fastTeardown;
+	private CompletableFuture<Void> pendingTeardown = CompletableFuture.completedFuture(null);
+	private final GanacheLogConsumer logConsumer = new GanacheLogConsumer(this);
+	private ResponseCache responseCache;
+	private final ForkSource forkSource = new ForkSource();
+	private boolean recycling;
 
 	// ==========================================
 	// Container initialization and configuration
@@ -128,6 +180,22 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 		this.ganacheVersionLevel = GanacheVersionLevel.fromImageName(imageName);
 	}
 
+	/**
+	 * Constructor.
+	 * <p>
+	 *     Creates a Ganache container using the image provided by the specified bundle. The image is loaded from the
+	 *     bundle archive if not already available locally, and is never pulled from a registry.
+	 * </p>
+	 *
+	 * @param imageBundle The image bundle.
+	 * @throws IllegalStateException when the image cannot be loaded from the bundle.
+	 */
+	public GanacheContainer(final GanacheImageBundle imageBundle) {
+		super(imageBundle.load(DockerClientFactory.instance().client()));
+		this.ganacheVersionLevel = GanacheVersionLevel.fromImageName(imageBundle.getImageName());
+		withImagePullPolicy(imageName -> false);
+	}
+
 	/**
 	 * Waits until Ganache is started.
 	 */
@@ -135,6 +203,48 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 		this.getWaitStrategy().waitUntilReady(this);
 	}
 
+	/**
+	 * Recycles the container if the memory watchdog detects that its memory usage or its latency exceeds the
+	 * configured thresholds. It should be called between tests, for example in a method annotated with
+	 * {@code @BeforeEach}.
+	 * <p>
+	 *     The container is gracefully stopped, so that the chain state is flushed into the persisted database, and
+	 *     restarted on this database. The testing accounts are re-mapped and checkpointed again, and the Web3j
+	 *     instance is renewed to target the new container.
+	 * </p>
+	 *
+	 * @return {@code true} if the container has been recycled, {@code false} otherwise.
+	 * @throws IllegalStateException when no memory watchdog is configured or when the container does not use a
+	 * 								 persistent database.
+	 * @see #withMemoryWatchdog(MemoryWatchdog)
+	 */
+	public boolean recycleIfNeeded() {
+		if (this.memoryWatchdog == null) {
+			throw new IllegalStateException("No memory watchdog is configured for this container.");
+		} else if (!this.persistentDatabase) {
+			throw new IllegalStateException("Recycling the container requires a persistent database.");
+		}
+		final long memoryUsage = this.resourceSampler.getTimeSeries().getLatest()
+			.map(ResourceSample::getMemoryUsageInBytes)
+			.orElse(0L);
+		final Duration latency = getGanacheJsonRpc().measureLatency();
+		if (!this.memoryWatchdog.shouldRecycle(memoryUsage, latency)) {
+			return false;
+		}
+		log.info("Recycling Ganache container (memory usage: {} bytes, latency: {} ms)", memoryUsage,
+			latency.toMillis());
+		getDockerClient().stopContainerCmd(getContainerId()).withTimeout(GRACEFUL_STOP_TIMEOUT_IN_SECONDS).exec();
+		this.recycling = true;
+		try {
+			stop();
+			start();
+		} finally {
+			this.recycling = false;
+		}
+		waitUntilGanacheIsReady();
+		return true;
+	}
+
 	/**
 	 * The provided aliases will be assigned, in the given order, to the accounts created by Ganache.
 	 * <p>
@@ -151,7 +261,14 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 	@Override
 	protected void configure() {
 		withExposedPorts(this.ganachePort);
-		withLogConsumer(new GanacheLogConsumer(this));
+		// The container may be configured several times when it is recycled: register the log consumer only once.
+		if (!getLogConsumers().contains(this.logConsumer)) {
+			withLogConsumer(this.logConsumer);
+		}
+		final String pinnedForkUrl = this.forkSource.pinForkUrl();
+		if (pinnedForkUrl != null) {
+			this.ganacheOptions.add("-f ".concat(pinnedForkUrl));
+		}
 		if (this.ganacheOptions.size() > 0) {
 			withCommand(String.join(StringUtils.SPACE, ganacheOptions));
 			log.debug("Options passed to Ganache CLI: " + String.join(StringUtils.SPACE, this.getCommandParts()));
@@ -160,6 +277,70 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 			.withStartupTimeout(Duration.ofSeconds(STARTUP_TIMEOUT_IN_SECONDS));
 	}
 
+	@Override
+	public void start() {
+		// Wait for the end of a possible asynchronous teardown of the previous run of this container.
+		this.pendingTeardown.join();
+		super.start();
+	}
+
+	@Override
+	public void stop() {
+		final Web3j currentWeb3j = this.web3j;
+		this.web3j = null;
+		// Invalidated synchronously, since the Web3j service may be shut down asynchronously below.
+		if (this.responseCache != null) {
+			this.responseCache.invalidate();
+		}
+		if (!this.fastTeardown || this.persistentDatabase || getContainerId() == null) {
+			super.stop();
+			shutdownWeb3j(currentWeb3j);
+			releaseForkNetwork();
+			return;
+		}
+		try {
+			getDockerClient().killContainerCmd(getContainerId()).exec();
+		} catch (final RuntimeException ex) {
+			log.debug("Unable to kill the Ganache container: {}", ex.getMessage());
+		}
+		this.pendingTeardown = CompletableFuture.runAsync(() -> {
+			super.stop();
+			shutdownWeb3j(currentWeb3j);
+			releaseForkNetwork();
+		}, TEARDOWN_EXECUTOR).exceptionally(ex -> {
+			// A failed teardown must not prevent the container from being restarted.
+			log.warn("Unable to tear down the Ganache container: {}", ex.getMessage());
+			return null;
+		});
+	}
+
+	private static void shutdownWeb3j(final Web3j web3jToShutdown) {
+		if (web3jToShutdown != null) {
+			web3jToShutdown.shutdown();
+		}
+	}
+
+	private void releaseForkNetwork() {
+		// The network shared with the forked containers is kept when this container is only recycled.
+		if (!this.recycling) {
+			ContainerForks.releaseNetwork(this);
+		}
+	}
+
+	@Override
+	protected void containerIsStarted(final InspectContainerResponse containerInfo) {
+		if (this.resourceSampler != null) {
+			this.resourceSampler.start(getDockerClient(), getContainerId());
+		}
+	}
+
+	@Override
+	protected void containerIsStopping(final InspectContainerResponse containerInfo) {
+		if (this.resourceSampler != null) {
+			this.resourceSampler.stop();
+		}
+	}
+
 	/**
 	 * Maps an account address generated by Ganache to a {@link TestingAccount} instance.
 	 *
@@ -203,6 +384,156 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 		}
 	}
 
+	// ================
+	// Container tuning
+	// ================
+
+	/**
+	 * Tunes the resources of the container: in-memory database, Node.js heap sizes, and CPU and memory limits (see
+	 * {@link ContainerTuning}). The Node.js options replace the ones possibly set by a previous call.
+	 * <p>
+	 *     Ganache CLI option: {@code --db} (prior to v7) or {@code --database.dbPath} (since v7), when the database is
+	 *     stored in memory<br>
+	 *	   Minimal required Ganache version: 6<br>
+	 *	   Default value: <i>none</i>
+	 * </p>
+	 *
+	 * @param tuning The tuning of the container (for example {@link ContainerTuning#highThroughput()}).
+	 * @return a reference to this container instance.
+	 * @throws IllegalArgumentException when the specified tuning is {@code null}.
+	 * @throws IllegalStateException when the tuning stores the database in memory and a database is already configured
+	 * 								 for this container.
+	 */
+	public SELF withTuning(final ContainerTuning tuning) {
+		if (tuning == null) {
+			throw new IllegalArgumentException("The container tuning cannot be null.");
+		}
+		if (tuning.getTmpfsSize() != null) {
+			checkNoDatabaseConfigured();
+			final Map<String, String> tmpFsMapping = new HashMap<>();
+			if (getTmpFsMapping() != null) {
+				tmpFsMapping.putAll(getTmpFsMapping());
+			}
+			tmpFsMapping.put(CONTAINER_DB_PATH, tuning.getTmpfsOptions());
+			tmpFsMapping.put(CONTAINER_TMP_PATH, tuning.getTmpfsOptions());
+			withTmpFs(tmpFsMapping);
+			final GanacheOption dbPathOptions = new GanacheOption()
+				.addOption(V6, "--db " + CONTAINER_DB_PATH)
+				.addOption(V7, "--database.dbPath " + CONTAINER_DB_PATH);
+			this.ganacheOptions.add(dbPathOptions.getOptionNameForVersion(this.ganacheVersionLevel));
+		}
+		if (StringUtils.isNotEmpty(tuning.getNodeOptions())) {
+			withEnv(NODE_OPTIONS_ENV, tuning.getNodeOptions());
+		}
+		withCreateContainerCmdModifier(tuning::applyResourceLimits);
+		return self();
+	}
+
+	/**
+	 * Enables the sampling of the resources consumed by the container while it is running: CPU and memory usage read
+	 * from the Docker statistics and, when reported by the garbage collector, Node.js heap usage.
+	 * <p>
+	 *     The samples are kept in a bounded time series which can be queried per test and exported (see
+	 *     {@link #getResourceTimeSeries()}). When the sampling is not enabled, no background task is started.
+	 * </p>
+	 *
+	 * @param interval The interval between two samples.
+	 * @param capacity The maximal number of samples kept in the time series.
+	 * @return a reference to this container instance.
+	 * @throws IllegalArgumentException when the interval or the capacity are not strictly positive.
+	 */
+	public SELF withResourceSampling(final Duration interval, final int capacity) {
+		this.resourceSampler = new ResourceSampler(interval, capacity);
+		// Let Node.js report each garbage collection to get the heap usage.
+		withCreateContainerCmdModifier(createContainerCmd -> ResourceSampler.traceGarbageCollections(
+			getDockerClient(), createContainerCmd));
+		return self();
+	}
+
+	/**
+	 * Enables the fast teardown of the container: when it is stopped, the container is immediately killed, then its
+	 * removal and the shutdown of the Web3j service are performed asynchronously, so the teardown does not block the
+	 * calling thread (typically the JUnit thread at the end of a test class).
+	 * <p>
+	 *     This mode only applies when the chain state is disposable: a container using a persistent database (see
+	 *     {@link #withDatabase(String)}) is always stopped synchronously to preserve the database. If the container
+	 *     is restarted, the start waits for the end of the pending teardown.
+	 * </p>
+	 *
+	 * @return a reference to this container instance.
+	 */
+	public SELF withFastTeardown() {
+		this.fastTeardown = true;
+		return self();
+	}
+
+	/**
+	 * Enables a watchdog detecting when the container should be recycled to keep a stable throughput over long test
+	 * runs (see {@link #recycleIfNeeded()}). The memory usage is provided by the resource sampling, which is enabled
+	 * with default settings if not already done.
+	 * <p>
+	 *     The watchdog requires a persistent database (see {@link #withDatabase(String)}) to restore the chain state
+	 *     when the container is recycled.
+	 * </p>
+	 *
+	 * @param watchdog The watchdog thresholds.
+	 * @return a reference to this container instance.
+	 * @throws IllegalArgumentException when the specified watchdog is {@code null}.
+	 */
+	public SELF withMemoryWatchdog(final MemoryWatchdog watchdog) {
+		if (watchdog == null) {
+			throw new IllegalArgumentException("The memory watchdog cannot be null.");
+		}
+		this.memoryWatchdog = watchdog;
+		if (this.resourceSampler == null) {
+			withResourceSampling(WATCHDOG_SAMPLING_INTERVAL, WATCHDOG_SAMPLING_CAPACITY);
+		}
+		return self();
+	}
+
+	/**
+	 * Memoizes the results of the JSON-RPC calls whose response never changes (for example the blocks and receipts
+	 * read by hash) sent through {@link #getWeb3j()}, in the given bounded cache (see {@link CachingHttpService}),
+	 * invalidated when a snapshot is reverted and when the container is stopped or recycled.
+	 *
+	 * @param cache The cache, whose hit and miss counters can be read to measure its efficiency.
+	 * @return a reference to this container instance.
+	 */
+	public SELF withResponseCache(final ResponseCache cache) {
+		this.responseCache = cache;
+		return self();
+	}
+
+	/**
+	 * Gets the time series of the resources consumed by the container.
+	 *
+	 * @return The time series of the resources samples.
+	 * @throws IllegalStateException when the resource sampling is not enabled.
+	 * @see #withResourceSampling(Duration, int)
+	 */
+	public ResourceTimeSeries getResourceTimeSeries() {
+		if (this.resourceSampler == null) {
+			throw new IllegalStateException("The resource sampling is not enabled for this container.");
+		}
+		return this.resourceSampler.getTimeSeries();
+	}
+
+	/**
+	 * Gets the sampler of the resources consumed by the container.
+	 *
+	 * @return The resource sampler or {@code null} if the resource sampling is not enabled.
+	 */
+	ResourceSampler getResourceSampler() {
+		return this.resourceSampler;
+	}
+
+	private void checkNoDatabaseConfigured() {
+		if (this.databaseConfigured) {
+			throw new IllegalStateException("A database is already configured for this container.");
+		}
+		this.databaseConfigured = true;
+	}
+
 	// ============================
 	// Services provided by Ganache
 	// ============================
@@ -248,8 +579,9 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 	public Web3j getWeb3j() {
 		if (this.web3j == null) {
 			try {
-				final String nodeUri = String.format("http://%s:%d/", getHost(), getMappedPort(8545));
-				this.web3j = Web3j.build(new HttpService(nodeUri));
+				final HttpService web3jService = new CachingHttpService(getNodeUri(), this.responseCache);
+				this.ganacheJsonRpc = new GanacheJsonRpc(web3jService);
+				this.web3j = Web3j.build(web3jService);
 				log.info("Starting Web3j service with net version: {}", this.web3j.netVersion().send().getNetVersion());
 			} catch (final Exception ex) {
 				throw new IllegalStateException("Unable to get Web3j instance.", ex);
@@ -258,6 +590,129 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 		return this.web3j;
 	}
 
+	/**
+	 * Gets the URI of the JSON-RPC endpoint of the Ganache container, reachable from the host.
+	 *
+	 * @return the URI of the Ganache node.
+	 */
+	public String getNodeUri() {
+		return String.format("http://%s:%d/", getHost(), getMappedPort(this.ganachePort));
+	}
+
+	/**
+	 * Gets a client for the JSON-RPC methods specific to Ganache, using the Ganache container as node provider.
+	 *
+	 * @return a client for the Ganache JSON-RPC methods.
+	 * @throws IllegalStateException when the Web3j service cannot be instantiated.
+	 */
+	public GanacheJsonRpc getGanacheJsonRpc() {
+		getWeb3j();
+		return this.ganacheJsonRpc;
+	}
+
+	/**
+	 * Submits several transactions and includes all of them in a single block, which is much faster than mining one
+	 * block per transaction (the default behaviour with the {@link Instamine#EAGER} mode) for bulk fixtures setup. The
+	 * automatic mining is paused during the submissions (see {@link GanacheJsonRpc#mineSingleBlock(Runnable)}), then
+	 * resumed according to the configured instamine mode and block time.
+	 *
+	 * @param submissions The submissions of the transactions to include in the block.
+	 * @return The receipts of the transactions included in the mined block, fetched in one batch.
+	 * @throws IllegalStateException when Ganache fails to mine the block or to return the receipts.
+	 */
+	public List<TransactionReceipt> inSingleBlock(final Runnable submissions) {
+		return getGanacheJsonRpc().mineSingleBlock(submissions);
+	}
+
+	/**
+	 * Waits for the receipts of several transactions, polled in a single JSON-RPC batch per tick (see
+	 * {@link GanacheJsonRpc#awaitReceipts(Collection)}).
+	 *
+	 * @param transactionHashes The hashes of the transactions.
+	 * @return The futures of the receipts, by transaction hash, completed as soon as the transactions are mined.
+	 */
+	public Map<String, CompletableFuture<TransactionReceipt>> awaitReceipts(
+		final Collection<String> transactionHashes) {
+		return getGanacheJsonRpc().awaitReceipts(transactionHashes);
+	}
+
+	/**
+	 * Mines several empty blocks in a single call, for example to test contracts depending on block numbers (see
+	 * {@link GanacheJsonRpc#mineBlocks(int, GanacheVersionLevel)}).
+	 *
+	 * @param numberOfBlocks The number of blocks to mine.
+	 * @return The number of the last block after the mining.
+	 * @throws IllegalArgumentException when the number of blocks is not strictly positive.
+	 * @throws IllegalStateException when Ganache fails to mine the blocks.
+	 */
+	public BigInteger mineBlocks(final int numberOfBlocks) {
+		return getGanacheJsonRpc().mineBlocks(numberOfBlocks, this.ganacheVersionLevel);
+	}
+
+	/**
+	 * Moves the time of the chain forward and mines a block with the new time, for example to test contracts
+	 * depending on timestamps (see {@link GanacheJsonRpc#increaseTime(Duration)}).
+	 *
+	 * @param duration The duration to add to the chain time. It is truncated to the second.
+	 * @return The total time adjustment of the chain since its start, in seconds.
+	 * @throws IllegalArgumentException when the duration is less than one second.
+	 * @throws IllegalStateException when Ganache fails to increase the time or to mine the block.
+	 */
+	public long advanceTime(final Duration duration) {
+		return getGanacheJsonRpc().increaseTime(duration);
+	}
+
+	/**
+	 * Traces a transaction with {@code debug_traceTransaction}, streaming the steps of the trace to a consumer with a
+	 * constant memory usage whatever the size of the trace (see {@link TransactionTracer}).
+	 *
+	 * @param transactionHash The hash of the transaction to trace.
+	 * @param options		  The options of the trace.
+	 * @param stepConsumer	  The consumer of the steps, called in the order of their execution.
+	 * @return The summary of the trace.
+	 * @throws IllegalStateException when the transaction cannot be traced.
+	 */
+	public TraceSummary traceTransaction(final String transactionHash, final TraceOptions options,
+										 final Consumer<StructLog> stepConsumer) {
+		return new TransactionTracer(getNodeUri()).trace(transactionHash, options, stepConsumer);
+	}
+
+	/**
+	 * Seeds the chain state from a JSON file (see {@link AccountState#readStates(Path)} for the expected format),
+	 * without executing any transaction. It is a fast alternative to the fixtures set up by sending transactions.
+	 * <p>
+	 *     Minimal required Ganache version: 7
+	 * </p>
+	 *
+	 * @param stateFile The path of the JSON state file.
+	 * @throws IllegalArgumentException when the specified file cannot be read or parsed.
+	 * @throws IllegalStateException when Ganache fails to apply the state.
+	 * @see #seedState(Map)
+	 */
+	public void seedState(final Path stateFile) {
+		seedState(AccountState.readStates(stateFile));
+	}
+
+	/**
+	 * Seeds the chain state with the given accounts states, without executing any transaction.
+	 * <p>
+	 *     The whole state is applied in one or a few round trips (see {@link GanacheJsonRpc#setAccountStates(Map)}).
+	 *     The testing accounts whose state is seeded are checkpointed again.<br>
+	 *     Minimal required Ganache version: 7
+	 * </p>
+	 *
+	 * @param state The accounts states, by address.
+	 * @throws IllegalStateException when Ganache fails to apply the state.
+	 */
+	public void seedState(final Map<String, AccountState> state) {
+		checkCompatibility(V7.getMajorVersion());
+		getGanacheJsonRpc().setAccountStates(state);
+		this.testingAccounts.values().stream()
+			.filter(account -> state.keySet().stream()
+				.anyMatch(address -> address.equalsIgnoreCase(account.getAddress())))
+			.forEach(TestingAccount::checkpoint);
+	}
+
 	// ===============
 	// Ganache options
 	// ===============
@@ -1068,6 +1523,7 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 	 * @param url The fork URL.
 	 * @return a reference to this container instance.
 	 * @throws IllegalArgumentException when the specified URL is invalid.
+	 * @throws IllegalStateException when this container forks from another container.
 	 * @see <a href="https://trufflesuite.com/docs/ganache/reference/cli-options/#fork">
 	 *	 Ganache CLI logging options</a>
 	 */
@@ -1077,10 +1533,35 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 		} catch (final MalformedURLException | URISyntaxException ex) {
 			throw new IllegalArgumentException("The URL is invalid.");
 		}
+		this.forkSource.configureOptions();
 		this.ganacheOptions.add("-f ".concat(url));
 		return self();
 	}
 
+	/**
+	 * Forks from another Ganache container (for example a base container holding deployed infrastructure), sharing a
+	 * Docker network with it (see {@link ContainerForks#shareNetwork(GanacheContainer)}). The fork is pinned to the
+	 * latest block of the base container when this container starts, so the base container must be started first.
+	 * It cannot be combined with the fork URL, network and block number options.
+	 * <p>
+	 *     Ganache CLI option: {@code -f} or {@code --fork.url} (since v7), set to {@code <base URL>@<block>}<br>
+	 *	   Minimal required Ganache version: 6<br>
+	 *	   Default value: <i>none</i>
+	 * </p>
+	 *
+	 * @param baseContainer The container to fork from.
+	 * @return a reference to this container instance.
+	 * @throws IllegalArgumentException when the specified container is {@code null} or is this container.
+	 * @throws IllegalStateException when a fork source is already configured.
+	 */
+	public SELF withForkFrom(final GanacheContainer<?> baseContainer) {
+		if (baseContainer == null || baseContainer == this) {
+			throw new IllegalArgumentException("The base container to fork from is invalid.");
+		}
+		withNetwork(this.forkSource.forkFrom(baseContainer));
+		return self();
+	}
+
 	/**
 	 * The network name to fork from. It uses Infura's archive nodes.
 	 * <p>
@@ -1092,6 +1573,7 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 	 * @param network The network to fork from.
 	 * @return a reference to this container instance.
 	 * @throws IllegalArgumentException when the specified network is {@code null}.
+	 * @throws IllegalStateException when this container forks from another container.
 	 * @see <a href="https://trufflesuite.com/docs/ganache/reference/cli-options/#fork">
 	 *	 Ganache CLI logging options</a>
 	 */
@@ -1100,6 +1582,7 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 		if (network == null) {
 			throw new IllegalArgumentException("The fork network cannot be null.");
 		}
+		this.forkSource.configureOptions();
 		this.ganacheOptions.add("--fork.network ".concat(network.getNetworkName()));
 		return self();
 	}
@@ -1115,6 +1598,7 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 	 * @param blockNumber The network to fork from.
 	 * @return a reference to this container instance.
 	 * @throws IllegalArgumentException when the specified block number is {@code null}.
+	 * @throws IllegalStateException when this container forks from another container.
 	 * @see <a href="https://trufflesuite.com/docs/ganache/reference/cli-options/#fork">
 	 *	 Ganache CLI logging options</a>
 	 */
@@ -1123,6 +1607,7 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 		if (blockNumber == null) {
 			throw new IllegalArgumentException("The fork block number cannot be null.");
 		}
+		this.forkSource.configureOptions();
 		this.ganacheOptions.add("--fork.blockNumber ".concat(blockNumber.getValue()));
 		return self();
 	}
@@ -1409,6 +1894,7 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 	 * @param dbPath The database directory path.
 	 * @return a reference to this container instance.
 	 * @throws IllegalArgumentException when the specified path does not exist or is not a directory.
+	 * @throws IllegalStateException when a database is already configured for this container.
 	 * @see <a href="https://trufflesuite.com/docs/ganache/reference/cli-options/#database">
 	 *	 Ganache CLI logging options</a>
 	 */
@@ -1421,10 +1907,12 @@ public class GanacheContainer<SELF extends GanacheContainer<SELF>> extends Gener
 		} else if (!Files.isDirectory(dbDirPath)) {
 			throw new IllegalArgumentException("The specified database path is not a directory.");
 		}
-		this.addFileSystemBind(dbPath, "/db_ganache", BindMode.READ_WRITE);
+		checkNoDatabaseConfigured();
+		this.persistentDatabase = true;
+		this.addFileSystemBind(dbPath, CONTAINER_DB_PATH, BindMode.READ_WRITE);
 		final GanacheOption dbPathOptions = new GanacheOption()
-			.addOption(V6, "--db /db_ganache")
-			.addOption(V7, "--database.dbPath /db_ganache");
+			.addOption(V6, "--db " + CONTAINER_DB_PATH)
+			.addOption(V7, "--database.dbPath " + CONTAINER_DB_PATH);
 		this.ganacheOptions.add(dbPathOptions.getOptionNameForVersion(this.ganacheVersionLevel));
 		// Add the deterministic seed option.
 		this.ganacheOptions.add("-d");
@@ -0,0 +1,180 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.exception.NotFoundException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static com.github.maximevw.moka.GanacheContainer.LATEST_VERSION;
+
+/**
+ * A Ganache image bundled as an archive produced by {@code docker save}, allowing to start Ganache containers without
+ * pulling the image from a registry (for example on air-gapped runners).
+ * <p>
+ *     The image is identified by a pinned version (the tag {@value GanacheContainer#LATEST_VERSION} is not allowed)
+ *     and by its expected image ID (the digest of the image configuration, as displayed by
+ *     {@code docker images --no-trunc}), which is verified once the image is loaded.
+ * </p>
+ *
+ * @see GanacheContainer#GanacheContainer(GanacheImageBundle)
+ */
+@Slf4j(topic = "GanacheContainer")
+@Getter
+public final class GanacheImageBundle {
+
+	private static final String SHA256_PREFIX = "sha256:";
+
+	/**
+	 * The image name.
+	 */
+	private final String imageName;
+
+	/**
+	 * The pinned image version.
+	 */
+	private final String version;
+
+	/**
+	 * The expected image ID, prefixed with {@code sha256:}.
+	 */
+	private final String imageId;
+
+	@Getter(AccessLevel.NONE)
+	private final ArchiveSource archiveSource;
+
+	private GanacheImageBundle(final String imageName, final String version, final String imageId,
+							   final ArchiveSource archiveSource) {
+		if (StringUtils.isBlank(imageName)) {
+			throw new IllegalArgumentException("The image name cannot be blank.");
+		} else if (StringUtils.isBlank(version) || LATEST_VERSION.equals(version)) {
+			throw new IllegalArgumentException("The image version must be pinned to a specific version.");
+		} else if (StringUtils.isBlank(imageId)) {
+			throw new IllegalArgumentException("The expected image ID cannot be blank.");
+		}
+		this.imageName = imageName;
+		this.version = version;
+		this.imageId = StringUtils.prependIfMissing(imageId, SHA256_PREFIX);
+		this.archiveSource = archiveSource;
+	}
+
+	/**
+	 * Creates a bundle from an image archive stored in the local filesystem.
+	 *
+	 * @param tarball	The path of the archive produced by {@code docker save}.
+	 * @param imageName The name of the image contained in the archive.
+	 * @param version	The pinned version (tag) of the image contained in the archive.
+	 * @param imageId	The expected image ID.
+	 * @return The image bundle.
+	 * @throws IllegalArgumentException when the archive does not exist or one of the image attributes is invalid.
+	 */
+	public static GanacheImageBundle fromTarball(final Path tarball, final String imageName, final String version,
+												 final String imageId) {
+		if (tarball == null || !Files.isRegularFile(tarball)) {
+			throw new IllegalArgumentException("The image archive does not exist.");
+		}
+		return new GanacheImageBundle(imageName, version, imageId, () -> Files.newInputStream(tarball));
+	}
+
+	/**
+	 * Creates a bundle from an image archive available as a classpath resource.
+	 *
+	 * @param resource	The name of the classpath resource containing the archive produced by {@code docker save}.
+	 * @param imageName The name of the image contained in the archive.
+	 * @param version	The pinned version (tag) of the image contained in the archive.
+	 * @param imageId	The expected image ID.
+	 * @return The image bundle.
+	 * @throws IllegalArgumentException when the resource does not exist or one of the image attributes is invalid.
+	 */
+	public static GanacheImageBundle fromClasspath(final String resource, final String imageName,
+												   final String version, final String imageId) {
+		if (StringUtils.isBlank(resource) || GanacheImageBundle.class.getClassLoader().getResource(resource) == null) {
+			throw new IllegalArgumentException("The image archive resource does not exist: " + resource);
+		}
+		return new GanacheImageBundle(imageName, version, imageId, () -> {
+			final InputStream archive = GanacheImageBundle.class.getClassLoader().getResourceAsStream(resource);
+			if (archive == null) {
+				throw new IllegalArgumentException("The image archive resource does not exist: " + resource);
+			}
+			return archive;
+		});
+	}
+
+	/**
+	 * Gets the full name of the image, including its version.
+	 *
+	 * @return The full image name.
+	 */
+	public String getFullImageName() {
+		return this.imageName + ":" + this.version;
+	}
+
+	/**
+	 * Loads the image in the Docker daemon, unless an image with the expected ID is already available locally.
+	 *
+	 * @param dockerClient The Docker client.
+	 * @return The full name of the loaded image.
+	 * @throws IllegalArgumentException when the archive is a classpath resource which cannot be found anymore.
+	 * @throws IllegalStateException when the archive cannot be read or the loaded image does not have the expected
+	 * 								 ID.
+	 */
+	public String load(final DockerClient dockerClient) {
+		if (this.imageId.equals(findLocalImageId(dockerClient).orElse(null))) {
+			log.debug("Image {} already available locally.", getFullImageName());
+			return getFullImageName();
+		}
+		log.info("Loading image {} from bundle.", getFullImageName());
+		try (InputStream archive = this.archiveSource.open()) {
+			dockerClient.loadImageCmd(archive).exec();
+		} catch (final IOException ex) {
+			throw new IllegalStateException("Unable to read the image archive.", ex);
+		}
+		final String loadedImageId = findLocalImageId(dockerClient).orElseThrow(() ->
+			new IllegalStateException("The image archive does not contain the image " + getFullImageName() + "."));
+		if (!this.imageId.equals(loadedImageId)) {
+			throw new IllegalStateException("The loaded image " + getFullImageName() + " has the ID " + loadedImageId
+				+ " instead of the expected one: " + this.imageId);
+		}
+		return getFullImageName();
+	}
+
+	private Optional<String> findLocalImageId(final DockerClient dockerClient) {
+		try {
+			return Optional.ofNullable(dockerClient.inspectImageCmd(getFullImageName()).exec().getId());
+		} catch (final NotFoundException ex) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * A source of image archive.
+	 */
+	@FunctionalInterface
+	private interface ArchiveSource {
+
+		/**
+		 * Opens the image archive.
+		 *
+		 * @return The stream of the archive content.
+		 * @throws IOException when the archive cannot be opened.
+		 */
+		InputStream open() throws IOException;
+
+	}
+
+}
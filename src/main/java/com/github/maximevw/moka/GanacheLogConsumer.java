@@ -9,6 +9,7 @@
 package com.github.maximevw.moka;
 
 import com.github.maximevw.moka.entities.TestingAccount;
+import com.github.maximevw.moka.monitoring.ResourceSampler;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -30,6 +31,9 @@ public class GanacheLogConsumer implements Consumer<OutputFrame> {
 	private static final Pattern GANACHE_VERSION = Pattern.compile("^ganache( CLI)? v(\\d+\\.\\d+\\.?\\d*) \\(.*\\)$",
 			Pattern.CASE_INSENSITIVE);
 	private static final Pattern RPC_LISTENING = Pattern.compile("^RPC Listening on .*:\\d+$");
+	private static final Pattern NODE_GC_TRACE = Pattern.compile(
+		"^\\[\\d+:0x[0-9a-fA-F]+]\\s+[\\d.]+ ms: [A-Za-z-]+.* -> ([\\d.]+) \\(([\\d.]+)\\) MB.*$");
+	private static final long BYTES_PER_MB = 1024 * 1024;
 
 	private final GanacheContainer<?> ganacheContainer;
 
@@ -72,8 +76,23 @@ public class GanacheLogConsumer implements Consumer<OutputFrame> {
 			this.ganacheContainer.getTestingAccounts().values().forEach(TestingAccount::checkpoint);
 		}
 
-		final OutputFrame.OutputType outputType = outputFrame.getType();
+		// Collect the heap usage reported by the garbage collector traces when resources are sampled (the traces are
+		// only enabled in this case, so the other lines are not matched against them). These traces are verbose, so
+		// they are only logged at debug level, whatever the output type.
 		final Logger loggerChain = LoggerFactory.getLogger("🔗 [Ganache]");
+		final ResourceSampler resourceSampler = this.ganacheContainer.getResourceSampler();
+		if (resourceSampler != null) {
+			final Matcher gcTraceMatcher = NODE_GC_TRACE.matcher(outputMessage);
+			if (gcTraceMatcher.matches()) {
+				resourceSampler.recordNodeHeap(
+					(long) (Double.parseDouble(gcTraceMatcher.group(1)) * BYTES_PER_MB),
+					(long) (Double.parseDouble(gcTraceMatcher.group(2)) * BYTES_PER_MB));
+				loggerChain.debug(outputMessage);
+				return;
+			}
+		}
+
+		final OutputFrame.OutputType outputType = outputFrame.getType();
 		switch (outputType) {
 			case END:
 				break;
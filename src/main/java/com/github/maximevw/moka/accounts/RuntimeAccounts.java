@@ -0,0 +1,136 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.accounts;
+
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.entities.InitAccountData;
+import com.github.maximevw.moka.entities.TestingAccount;
+import com.github.maximevw.moka.rpc.GanacheJsonRpc;
+import org.web3j.crypto.Keys;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.maximevw.moka.enums.GanacheVersionLevel.V7;
+
+/**
+ * Creation, import and funding of testing accounts while a Ganache container is running, without restarting it. The
+ * new accounts are registered in the testing accounts of the container (see
+ * {@link GanacheContainer#getTestingAccounts()}) with their aliases, and checkpointed with their initial balance.
+ * <p>
+ *     Minimal required Ganache version: 7
+ * </p>
+ */
+public class RuntimeAccounts {
+
+	private final GanacheContainer<?> ganacheContainer;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param ganacheContainer The Ganache container in which the accounts are created.
+	 */
+	public RuntimeAccounts(final GanacheContainer<?> ganacheContainer) {
+		this.ganacheContainer = ganacheContainer;
+	}
+
+	/**
+	 * Imports and funds new testing accounts, with a few batched JSON-RPC calls (see
+	 * {@link GanacheJsonRpc#importAccounts(List)}). The accounts are unlocked and checkpointed with their initial
+	 * balance.
+	 *
+	 * @param accounts The private keys and balances of the accounts.
+	 * @param aliases  The aliases assigned, in the given order, to the accounts (may contain less aliases than
+	 * 				   accounts, or be {@code null}).
+	 * @return The created testing accounts.
+	 * @throws IllegalStateException when the Ganache version is not supported or Ganache fails to import the accounts.
+	 */
+	public List<TestingAccount> importTestingAccounts(final List<InitAccountData> accounts,
+													  final List<String> aliases) {
+		checkCompatibility();
+		final List<String> addresses = this.ganacheContainer.getGanacheJsonRpc().importAccounts(accounts);
+		return IntStream.range(0, accounts.size())
+			.mapToObj(i -> registerTestingAccount(addresses.get(i), accounts.get(i).getPrivateKey(),
+				getAlias(aliases, i), accounts.get(i).getBalanceInWei()))
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Creates a new testing account with a randomly generated private key.
+	 *
+	 * @param alias		   The alias of the account (may be {@code null}).
+	 * @param balanceInWei The initial balance in WEI.
+	 * @return The created testing account.
+	 * @throws IllegalStateException when the key pair cannot be generated, the Ganache version is not supported or
+	 * 								 Ganache fails to import the account.
+	 */
+	public TestingAccount createTestingAccount(final String alias, final BigInteger balanceInWei) {
+		try {
+			final String privateKey = Numeric.toHexStringWithPrefixZeroPadded(Keys.createEcKeyPair().getPrivateKey(),
+				Keys.PRIVATE_KEY_LENGTH_IN_HEX);
+			return importTestingAccounts(List.of(new InitAccountData(privateKey, balanceInWei)),
+				Collections.singletonList(alias)).get(0);
+		} catch (final GeneralSecurityException ex) {
+			throw new IllegalStateException("Unable to generate a key pair.", ex);
+		}
+	}
+
+	/**
+	 * Adds and funds a testing account whose private key is unknown (for example to impersonate an account of a forked
+	 * chain), see {@link GanacheJsonRpc#addAccounts(Map)}. The account is unlocked to send transactions with
+	 * {@code eth_sendTransaction}.
+	 *
+	 * @param address	   The address of the account.
+	 * @param alias		   The alias of the account (may be {@code null}).
+	 * @param balanceInWei The initial balance in WEI.
+	 * @return The added testing account.
+	 * @throws IllegalStateException when the Ganache version is not supported or Ganache fails to add the account.
+	 */
+	public TestingAccount addTestingAccount(final String address, final String alias, final BigInteger balanceInWei) {
+		checkCompatibility();
+		this.ganacheContainer.getGanacheJsonRpc().addAccounts(Map.of(address, balanceInWei));
+		return registerTestingAccount(address, null, alias, balanceInWei);
+	}
+
+	private static String getAlias(final List<String> aliases, final int index) {
+		if (aliases == null || index >= aliases.size()) {
+			return null;
+		}
+		return aliases.get(index);
+	}
+
+	private void checkCompatibility() {
+		if (this.ganacheContainer.getGanacheVersionLevel().getMajorVersion() < V7.getMajorVersion()) {
+			throw new IllegalStateException("The runtime accounts require Ganache 7 or higher.");
+		}
+	}
+
+	private TestingAccount registerTestingAccount(final String address, final String privateKey, final String alias,
+												  final BigInteger balanceInWei) {
+		final TestingAccount account = TestingAccount.builder()
+			.ganacheInstance(this.ganacheContainer)
+			.address(address)
+			.privateKey(privateKey)
+			.alias(alias)
+			.lastBalance(balanceInWei)
+			.build();
+		final Map<Integer, TestingAccount> testingAccounts = this.ganacheContainer.getTestingAccounts();
+		synchronized (testingAccounts) {
+			testingAccounts.put(testingAccounts.keySet().stream().max(Integer::compare).orElse(-1) + 1, account);
+		}
+		return account;
+	}
+
+}
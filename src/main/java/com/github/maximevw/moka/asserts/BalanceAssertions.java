@@ -8,11 +8,15 @@
 
 package com.github.maximevw.moka.asserts;
 
+import com.github.maximevw.moka.entities.BalanceChange;
 import com.github.maximevw.moka.entities.TestingAccount;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.Assertions;
 
 import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.AssertionFailureBuilder.assertionFailure;
 import static org.web3j.utils.Convert.Unit.WEI;
@@ -142,4 +146,133 @@ public final class BalanceAssertions {
 		}
 	}
 
+	/**
+	 * Asserts that the balance of the given account has changed exactly as expected from the given transactions (see
+	 * {@link TestingAccount#getBalanceChange(Collection)}): values sent and received, and gas fees paid.
+	 *
+	 * @param account			The tested account.
+	 * @param transactionHashes The hashes of the transactions changing the balance of the account.
+	 * @throws IllegalStateException when a transaction is not mined or other transactions involving the account are
+	 * 								 mined in the same range of blocks.
+	 */
+	public static void assertBalanceChangedByTransactions(final TestingAccount account,
+														  final Collection<String> transactionHashes) {
+		assertBalanceChangedByTransactions(account, transactionHashes, BigInteger.ZERO);
+	}
+
+	/**
+	 * Asserts that the balance of the given account has changed exactly as expected from the given transactions (see
+	 * {@link TestingAccount#getBalanceChange(Collection)}) and an additional variation not visible in the
+	 * transactions themselves, for example the values transferred to the account by the called contracts.
+	 *
+	 * @param account			  The tested account.
+	 * @param transactionHashes	  The hashes of the transactions changing the balance of the account.
+	 * @param additionalVariation The additional variation of the balance in WEI (negative for a decrease).
+	 * @throws IllegalStateException when a transaction is not mined or other transactions involving the account are
+	 * 								 mined in the same blocks.
+	 */
+	public static void assertBalanceChangedByTransactions(final TestingAccount account,
+														  final Collection<String> transactionHashes,
+														  final BigInteger additionalVariation) {
+		final BalanceChange balanceChange = account.getBalanceChange(transactionHashes);
+		final BigInteger expectedVariation = balanceChange.getExpectedVariation().add(additionalVariation);
+		if (expectedVariation.compareTo(balanceChange.getActualVariation()) != 0) {
+			assertionFailure().message("The balance has not changed as expected in the blocks "
+					+ balanceChange.getBlocks() + " (including " + balanceChange.getGasFees() + WEI.name()
+					+ " of gas fees).")
+				.expected(expectedVariation + WEI.name())
+				.actual(balanceChange.getActualVariation() + WEI.name())
+				.buildAndThrow();
+		}
+	}
+
+	/**
+	 * Waits until the given account has the expected balance, re-evaluating the assertion each time a new block is
+	 * mined, and fails if the balance is still not the expected one at the end of the timeout.
+	 *
+	 * @param account			The tested account.
+	 * @param expectedBalance	The expected balance in WEI.
+	 * @param timeout			The maximal time to wait.
+	 * @see #assertBalanceEquals(TestingAccount, BigInteger)
+	 */
+	public static void awaitBalanceEquals(final TestingAccount account, final BigInteger expectedBalance,
+										  final Duration timeout) {
+		awaitAssertion(account, timeout, () -> assertBalanceEquals(account, expectedBalance));
+	}
+
+	/**
+	 * Waits until the balance of the given account has decreased since the last account checkpoint, re-evaluating
+	 * the assertion each time a new block is mined, and fails if the balance has still not decreased at the end of
+	 * the timeout.
+	 *
+	 * @param account The tested account.
+	 * @param timeout The maximal time to wait.
+	 * @see #assertBalanceDecreased(TestingAccount)
+	 */
+	public static void awaitBalanceDecreased(final TestingAccount account, final Duration timeout) {
+		awaitAssertion(account, timeout, () -> assertBalanceDecreased(account));
+	}
+
+	/**
+	 * Waits until the balance of the given account has decreased in a given proportion (in WEI) since the last
+	 * account checkpoint, re-evaluating the assertion each time a new block is mined, and fails if the variation is
+	 * still not the expected one at the end of the timeout.
+	 *
+	 * @param account The tested account.
+	 * @param matcher The comparison matcher using a value in WEI.
+	 * @param timeout The maximal time to wait.
+	 * @see #assertBalanceDecreased(TestingAccount, VariationMatcher)
+	 */
+	public static void awaitBalanceDecreased(final TestingAccount account, final VariationMatcher<BigInteger> matcher,
+											 final Duration timeout) {
+		awaitAssertion(account, timeout, () -> assertBalanceDecreased(account, matcher));
+	}
+
+	/**
+	 * Waits until the balance of the given account has increased since the last account checkpoint, re-evaluating
+	 * the assertion each time a new block is mined, and fails if the balance has still not increased at the end of
+	 * the timeout.
+	 *
+	 * @param account The tested account.
+	 * @param timeout The maximal time to wait.
+	 * @see #assertBalanceIncreased(TestingAccount)
+	 */
+	public static void awaitBalanceIncreased(final TestingAccount account, final Duration timeout) {
+		awaitAssertion(account, timeout, () -> assertBalanceIncreased(account));
+	}
+
+	/**
+	 * Waits until the balance of the given account has increased in a given proportion (in WEI) since the last
+	 * account checkpoint, re-evaluating the assertion each time a new block is mined, and fails if the variation is
+	 * still not the expected one at the end of the timeout.
+	 *
+	 * @param account The tested account.
+	 * @param matcher The comparison matcher using a value in WEI.
+	 * @param timeout The maximal time to wait.
+	 * @see #assertBalanceIncreased(TestingAccount, VariationMatcher)
+	 */
+	public static void awaitBalanceIncreased(final TestingAccount account, final VariationMatcher<BigInteger> matcher,
+											 final Duration timeout) {
+		awaitAssertion(account, timeout, () -> assertBalanceIncreased(account, matcher));
+	}
+
+	private static void awaitAssertion(final TestingAccount account, final Duration timeout,
+									   final Runnable assertion) {
+		final long deadline = System.nanoTime() + timeout.toNanos();
+		// The balance can only change with a new block: read the block number before evaluating the assertion, so
+		// a block mined during the evaluation triggers a new evaluation.
+		Optional<BigInteger> observedBlock = Optional.of(account.getLatestBlockNumber());
+		while (observedBlock.isPresent()) {
+			try {
+				assertion.run();
+				return;
+			} catch (final AssertionError ex) {
+				final Duration remainingTime = Duration.ofNanos(deadline - System.nanoTime());
+				observedBlock = account.awaitBlockAfter(observedBlock.get(), remainingTime);
+			}
+		}
+		// Last evaluation reporting the failure.
+		assertion.run();
+	}
+
 }
@@ -0,0 +1,111 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.asserts;
+
+import com.github.maximevw.moka.events.EventIndex;
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.protocol.core.methods.response.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.AssertionFailureBuilder.assertionFailure;
+
+/**
+ * Assertions for the events emitted by contracts, looked up in an {@link EventIndex}.
+ */
+public final class EventAssertions {
+
+	private static final String SINCE_CHECKPOINT = " since the last checkpoint.";
+
+	private EventAssertions() {
+		// Private constructor hiding the public default one.
+	}
+
+	/**
+	 * Asserts that the given event has been emitted by a contract since the last checkpoint of the events index.
+	 *
+	 * @param eventIndex	  The events index.
+	 * @param contractAddress The address of the contract emitting the event, or {@code null} for any contract.
+	 * @param event			  The expected event.
+	 * @param indexedTopics	  The expected values of the first indexed parameters of the event, encoded as topics. A
+	 *                        {@code null} value matches any value.
+	 * @return The matching logs.
+	 * @see EventIndex#checkpoint()
+	 */
+	public static List<Log> assertEventEmitted(final EventIndex eventIndex, final String contractAddress,
+											   final Event event, final String... indexedTopics) {
+		final List<Log> logs = eventIndex.findLogsSinceCheckpoint(contractAddress, toTopics(event, indexedTopics));
+		if (logs.isEmpty()) {
+			assertionFailure().message("The event " + event.getName() + " has not been emitted" + SINCE_CHECKPOINT)
+				.expected("At least 1 event")
+				.actual("0 event")
+				.buildAndThrow();
+		}
+		return logs;
+	}
+
+	/**
+	 * Asserts that the given event has been emitted a given number of times by a contract since the last checkpoint
+	 * of the events index.
+	 *
+	 * @param eventIndex	  The events index.
+	 * @param contractAddress The address of the contract emitting the event, or {@code null} for any contract.
+	 * @param times			  The expected number of emitted events.
+	 * @param event			  The expected event.
+	 * @param indexedTopics	  The expected values of the first indexed parameters of the event, encoded as topics. A
+	 *                        {@code null} value matches any value.
+	 * @return The matching logs.
+	 * @see EventIndex#checkpoint()
+	 */
+	public static List<Log> assertEventEmittedTimes(final EventIndex eventIndex, final String contractAddress,
+													final int times, final Event event,
+													final String... indexedTopics) {
+		final List<Log> logs = eventIndex.findLogsSinceCheckpoint(contractAddress, toTopics(event, indexedTopics));
+		if (logs.size() != times) {
+			assertionFailure().message("The event " + event.getName() + " has not been emitted " + times
+					+ " times" + SINCE_CHECKPOINT)
+				.expected(times + " events")
+				.actual(logs.size() + " events")
+				.buildAndThrow();
+		}
+		return logs;
+	}
+
+	/**
+	 * Asserts that the given event has not been emitted by a contract since the last checkpoint of the events index.
+	 *
+	 * @param eventIndex	  The events index.
+	 * @param contractAddress The address of the contract, or {@code null} for any contract.
+	 * @param event			  The unexpected event.
+	 * @param indexedTopics	  The values of the first indexed parameters of the event, encoded as topics. A
+	 *                        {@code null} value matches any value.
+	 * @see EventIndex#checkpoint()
+	 */
+	public static void assertEventNotEmitted(final EventIndex eventIndex, final String contractAddress,
+											 final Event event, final String... indexedTopics) {
+		final List<Log> logs = eventIndex.findLogsSinceCheckpoint(contractAddress, toTopics(event, indexedTopics));
+		if (!logs.isEmpty()) {
+			assertionFailure().message("The event " + event.getName() + " has been emitted" + SINCE_CHECKPOINT)
+				.expected("0 event")
+				.actual(logs.size() + " events, first in transaction " + logs.get(0).getTransactionHash())
+				.buildAndThrow();
+		}
+	}
+
+	private static List<String> toTopics(final Event event, final String... indexedTopics) {
+		final List<String> topics = new ArrayList<>();
+		topics.add(EventEncoder.encode(event));
+		topics.addAll(Arrays.asList(indexedTopics));
+		return topics;
+	}
+
+}
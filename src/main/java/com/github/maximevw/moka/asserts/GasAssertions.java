@@ -0,0 +1,121 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.asserts;
+
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.enums.BaselineMode;
+import com.github.maximevw.moka.gas.GasBaseline;
+import com.github.maximevw.moka.gas.GasMeter;
+import lombok.extern.slf4j.Slf4j;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.AssertionFailureBuilder.assertionFailure;
+
+/**
+ * Assertions for the gas used by transactions.
+ */
+@Slf4j(topic = "GanacheContainer")
+public final class GasAssertions {
+
+	private static final String GAS = " gas";
+	private static final String AT_MOST = "At most ";
+
+	private GasAssertions() {
+		// Private constructor hiding the public default one.
+	}
+
+	/**
+	 * Asserts that a mined transaction has used at most the given gas.
+	 *
+	 * @param ganacheContainer The Ganache container in which the transaction has been mined.
+	 * @param transactionHash  The hash of the tested transaction.
+	 * @param maximalGas	   The maximal expected gas.
+	 * @throws IllegalStateException when the receipt of the transaction cannot be retrieved.
+	 */
+	public static void assertGasUsedAtMost(final GanacheContainer<?> ganacheContainer, final String transactionHash,
+										   final long maximalGas) {
+		final List<TransactionReceipt> receipts = ganacheContainer.getGanacheJsonRpc()
+			.getTransactionReceipts(Collections.singletonList(transactionHash));
+		if (receipts.get(0) == null) {
+			throw new IllegalStateException("The transaction " + transactionHash + " is not mined.");
+		}
+		assertGasUsedAtMost(receipts.get(0), maximalGas);
+	}
+
+	/**
+	 * Asserts that a mined transaction has used at most the given gas.
+	 *
+	 * @param receipt	 The receipt of the tested transaction.
+	 * @param maximalGas The maximal expected gas.
+	 */
+	public static void assertGasUsedAtMost(final TransactionReceipt receipt, final long maximalGas) {
+		final long gasUsed = receipt.getGasUsed().longValueExact();
+		if (gasUsed > maximalGas) {
+			assertionFailure().message("The transaction " + receipt.getTransactionHash() + " has used too much gas.")
+				.expected(AT_MOST + maximalGas + GAS)
+				.actual(gasUsed + GAS)
+				.buildAndThrow();
+		}
+	}
+
+	/**
+	 * Asserts that the blocks mined since the start of a gas meter have used at most the given gas.
+	 *
+	 * @param gasMeter	 The gas meter.
+	 * @param maximalGas The maximal expected gas.
+	 * @throws IllegalStateException when the blocks cannot be retrieved.
+	 * @see GasMeter#restart()
+	 */
+	public static void assertGasUsedAtMost(final GasMeter gasMeter, final long maximalGas) {
+		final long gasUsed = gasMeter.getGasUsed();
+		if (gasUsed > maximalGas) {
+			assertionFailure().message("The gas used since the start of the gas meter is too high.")
+				.expected(AT_MOST + maximalGas + GAS)
+				.actual(gasUsed + GAS)
+				.buildAndThrow();
+		}
+	}
+
+	/**
+	 * Asserts that the gas used by a labelled operation does not exceed its baseline by more than the tolerance of
+	 * the baseline. The measured gas is recorded in the baseline in any case.
+	 * <p>
+	 *     When the baseline is exceeded, the assertion fails in {@link BaselineMode#FAIL} mode and only logs a warning
+	 *     in {@link BaselineMode#WARN} mode. The operations without baseline yet, as well as all the operations in
+	 *     {@link BaselineMode#UPDATE} mode, always pass.
+	 * </p>
+	 *
+	 * @param gasBaseline The gas baseline.
+	 * @param label		  The label of the operation.
+	 * @param gasUsed	  The gas used by the operation.
+	 */
+	public static void assertGasWithinBaseline(final GasBaseline gasBaseline, final String label,
+											   final long gasUsed) {
+		gasBaseline.record(label, gasUsed);
+		final Optional<Long> maximalGas = gasBaseline.getMaximalGas(label);
+		if (gasBaseline.getMode() == BaselineMode.UPDATE || maximalGas.isEmpty() || gasUsed <= maximalGas.get()) {
+			return;
+		}
+		final String message = String.format("The gas used by '%s' exceeds its baseline (%d gas) by more than %s%%.",
+			label, gasBaseline.getBaselineGas(label).orElse(0L), gasBaseline.getTolerancePercent());
+		if (gasBaseline.getMode() == BaselineMode.WARN) {
+			log.warn("{} Gas used: {}", message, gasUsed);
+			return;
+		}
+		assertionFailure().message(message)
+			.expected(AT_MOST + maximalGas.get() + GAS)
+			.actual(gasUsed + GAS)
+			.buildAndThrow();
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.asserts;
+
+import com.github.maximevw.moka.tokens.TokenBalances;
+import org.apache.commons.lang3.StringUtils;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.AssertionFailureBuilder.assertionFailure;
+
+/**
+ * Assertions for the token balances (ERC-20 or ERC-1155) of several holders, all read in a single JSON-RPC batch
+ * (see {@link TokenBalances}). The assertions check all the given holders and report all the mismatches at once.
+ */
+public final class TokenBalanceAssertions {
+
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+	private static final String HOLDER_SEPARATOR = ": ";
+
+	private TokenBalanceAssertions() {
+		// Private constructor hiding the public default one.
+	}
+
+	/**
+	 * Asserts that the given holder has the expected token balance.
+	 *
+	 * @param tokenBalances	  The token balances.
+	 * @param holder		  The address of the tested holder. It must be one of the holders of the token balances.
+	 * @param expectedBalance The expected balance.
+	 * @throws IllegalStateException when the balances cannot be read.
+	 */
+	public static void assertTokenBalanceEquals(final TokenBalances tokenBalances, final String holder,
+												final BigInteger expectedBalance) {
+		assertTokenBalancesEqual(tokenBalances, Collections.singletonMap(holder, expectedBalance));
+	}
+
+	/**
+	 * Asserts that the given holders have the expected token balances.
+	 *
+	 * @param tokenBalances	   The token balances.
+	 * @param expectedBalances The expected balances by holder address. The holders must be holders of the token
+	 *                         balances.
+	 * @throws IllegalStateException when the balances cannot be read.
+	 */
+	public static void assertTokenBalancesEqual(final TokenBalances tokenBalances,
+												final Map<String, BigInteger> expectedBalances) {
+		final Map<String, BigInteger> currentBalances = tokenBalances.getBalances();
+		final List<String> mismatches = new ArrayList<>();
+		expectedBalances.forEach((holder, expectedBalance) -> {
+			final BigInteger currentBalance = currentBalance(currentBalances, holder);
+			if (expectedBalance.compareTo(currentBalance) != 0) {
+				mismatches.add(holder + HOLDER_SEPARATOR + currentBalance + " instead of " + expectedBalance);
+			}
+		});
+		failOnMismatches("Unexpected token balances", mismatches);
+	}
+
+	/**
+	 * Asserts that the token balances of the given holders have decreased in a given proportion since the last
+	 * checkpoint of the token balances.
+	 *
+	 * @param tokenBalances The token balances.
+	 * @param matchers		The comparison matchers of the variations, by holder address. The holders must be holders
+	 *                      of the token balances.
+	 * @throws IllegalStateException when the balances cannot be read.
+	 * @see TokenBalances#checkpoint()
+	 */
+	public static void assertTokenBalancesDecreased(final TokenBalances tokenBalances,
+													final Map<String, VariationMatcher<BigInteger>> matchers) {
+		assertVariations(tokenBalances, matchers, BigInteger::negate, "decrease");
+	}
+
+	/**
+	 * Asserts that the token balances of the given holders have increased in a given proportion since the last
+	 * checkpoint of the token balances.
+	 *
+	 * @param tokenBalances The token balances.
+	 * @param matchers		The comparison matchers of the variations, by holder address. The holders must be holders
+	 *                      of the token balances.
+	 * @throws IllegalStateException when the balances cannot be read.
+	 * @see TokenBalances#checkpoint()
+	 */
+	public static void assertTokenBalancesIncreased(final TokenBalances tokenBalances,
+													final Map<String, VariationMatcher<BigInteger>> matchers) {
+		assertVariations(tokenBalances, matchers, Function.identity(), "increase");
+	}
+
+	/**
+	 * Asserts that the token balances of all the holders are stable since the last checkpoint of the token balances.
+	 *
+	 * @param tokenBalances The token balances.
+	 * @throws IllegalStateException when the balances cannot be read.
+	 * @see TokenBalances#checkpoint()
+	 */
+	public static void assertTokenBalancesStable(final TokenBalances tokenBalances) {
+		assertTokenBalancesEqual(tokenBalances, tokenBalances.getLastBalances());
+	}
+
+	private static void assertVariations(final TokenBalances tokenBalances,
+										 final Map<String, VariationMatcher<BigInteger>> matchers,
+										 final Function<BigInteger, BigInteger> orientation,
+										 final String expectedDirection) {
+		final Map<String, BigInteger> currentBalances = tokenBalances.getBalances();
+		final Map<String, BigInteger> lastBalances = tokenBalances.getLastBalances();
+		final List<String> mismatches = new ArrayList<>();
+		matchers.forEach((holder, matcher) -> {
+			final BigInteger currentBalance = currentBalance(currentBalances, holder);
+			final BigInteger lastBalance = lastBalances.get(holder.toLowerCase(Locale.ROOT));
+			final BigInteger variation = orientation.apply(currentBalance.subtract(lastBalance));
+			if (variation.signum() < 0 || !matcher.comparesTo(variation)) {
+				mismatches.add(holder + HOLDER_SEPARATOR + lastBalance + " -> " + currentBalance
+					+ ", expected " + expectedDirection + StringUtils.SPACE + matcher.describeMismatch());
+			}
+		});
+		failOnMismatches("Unexpected token balance variations since the last checkpoint", mismatches);
+	}
+
+	private static BigInteger currentBalance(final Map<String, BigInteger> currentBalances, final String holder) {
+		// The balances are keyed by lowercase address, whatever the case of the given address (e.g. checksummed).
+		final BigInteger currentBalance = currentBalances.get(holder.toLowerCase(Locale.ROOT));
+		if (currentBalance == null) {
+			throw new IllegalArgumentException("The address " + holder + " is not a holder of the token balances.");
+		}
+		return currentBalance;
+	}
+
+	private static void failOnMismatches(final String message, final List<String> mismatches) {
+		if (!mismatches.isEmpty()) {
+			assertionFailure().message(message + " (" + mismatches.size() + " holder(s)):" + LINE_SEPARATOR
+					+ String.join(LINE_SEPARATOR, mismatches))
+				.buildAndThrow();
+		}
+	}
+
+}
@@ -0,0 +1,86 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.entities;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.maximevw.moka.GanacheContainer;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+import org.web3j.protocol.ObjectMapperFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * The state of an account to seed in the chain. All the values are optional: only the provided ones are applied.
+ * <p>
+ *     The numeric values (balance and nonce) can be provided either as hexadecimal quantities prefixed by {@code 0x}
+ *     or as decimal values.
+ * </p>
+ *
+ * @see GanacheContainer#seedState(Path)
+ */
+@Getter
+@Builder
+@Jacksonized
+public class AccountState {
+
+	/**
+	 * The balance of the account in WEI.
+	 */
+	private String balance;
+
+	/**
+	 * The nonce of the account.
+	 */
+	private String nonce;
+
+	/**
+	 * The bytecode deployed at the account address, prefixed by {@code 0x}.
+	 */
+	private String code;
+
+	/**
+	 * The storage slots of the account: the keys are the slots and the values the data stored in each slot.
+	 */
+	private Map<String, String> storage;
+
+	/**
+	 * Reads the states of several accounts from a JSON file.
+	 * <p>
+	 *     The file contains a JSON object where the keys are the accounts addresses and the values the states of the
+	 *     accounts, for example:
+	 *     <pre>
+	 *       {
+	 *         "0x8ba1f109551bD432803012645Ac136ddd64DBA72": {
+	 *           "balance": "0xde0b6b3a7640000",
+	 *           "nonce": "0x1",
+	 *           "code": "0x6080...",
+	 *           "storage": { "0x0": "0x2a" }
+	 *         }
+	 *       }
+	 *     </pre>
+	 * </p>
+	 *
+	 * @param stateFile The path of the JSON state file.
+	 * @return The accounts states, by address.
+	 * @throws IllegalArgumentException when the specified file cannot be read or parsed.
+	 */
+	public static Map<String, AccountState> readStates(final Path stateFile) {
+		try {
+			return ObjectMapperFactory.getObjectMapper()
+				.readValue(stateFile.toFile(), new TypeReference<Map<String, AccountState>>() { });
+		} catch (final IOException ex) {
+			throw new IllegalArgumentException("Unable to read the state file: " + stateFile, ex);
+		}
+	}
+
+}
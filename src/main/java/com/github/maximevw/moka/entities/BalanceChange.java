@@ -0,0 +1,62 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The variation of the balance of an account in the blocks including a set of transactions, compared to the
+ * variation expected from these transactions only.
+ *
+ * @see TestingAccount#getBalanceChange(Collection)
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class BalanceChange {
+
+	/**
+	 * The number of the first block including one of the transactions.
+	 */
+	private BigInteger fromBlock;
+
+	/**
+	 * The number of the last block including one of the transactions.
+	 */
+	private BigInteger toBlock;
+
+	/**
+	 * The numbers of the blocks including the transactions, in ascending order.
+	 */
+	private List<BigInteger> blocks;
+
+	/**
+	 * The variation of the balance in WEI expected from the transactions: the values received, minus the values sent
+	 * and the gas fees paid by the account.
+	 */
+	private BigInteger expectedVariation;
+
+	/**
+	 * The actual variation of the balance in WEI in the {@link #blocks} including the transactions: the sum of the
+	 * variations between each of these blocks and the block preceding it.
+	 */
+	private BigInteger actualVariation;
+
+	/**
+	 * The gas fees in WEI paid by the account for the transactions it sent.
+	 */
+	private BigInteger gasFees;
+
+}
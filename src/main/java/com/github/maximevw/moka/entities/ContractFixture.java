@@ -0,0 +1,48 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.entities;
+
+import com.github.maximevw.moka.fixtures.ContractFixtures;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigInteger;
+
+/**
+ * A contract deployed once and shared by several tests.
+ *
+ * @see ContractFixtures
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class ContractFixture {
+
+	/**
+	 * The address of the deployed contract.
+	 */
+	private String contractAddress;
+
+	/**
+	 * The hash of the deployment transaction.
+	 */
+	private String transactionHash;
+
+	/**
+	 * The address of the account having deployed the contract.
+	 */
+	private String deployerAddress;
+
+	/**
+	 * The number of the block containing the deployment transaction.
+	 */
+	private BigInteger blockNumber;
+
+}
@@ -0,0 +1,86 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.entities;
+
+import com.github.maximevw.moka.load.LoadGenerator;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * The report of a load generated by a {@link LoadGenerator}.
+ * <p>
+ *     The latency of a transaction is the time elapsed between its submission and the observation of its receipt:
+ *     it includes the polling interval of the receipts.
+ * </p>
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class LoadReport {
+
+	/**
+	 * The duration of the load, from the first submission to the end of the confirmations.
+	 */
+	private Duration duration;
+
+	/**
+	 * The number of transactions the generator tried to submit.
+	 */
+	private long submittedTransactions;
+
+	/**
+	 * The number of transactions mined successfully.
+	 */
+	private long confirmedTransactions;
+
+	/**
+	 * The number of transactions mined successfully per second over the duration of the load.
+	 */
+	private double confirmedTransactionsPerSecond;
+
+	/**
+	 * The median latency of the mined transactions.
+	 */
+	private Duration latencyP50;
+
+	/**
+	 * The 90th percentile of the latency of the mined transactions.
+	 */
+	private Duration latencyP90;
+
+	/**
+	 * The 99th percentile of the latency of the mined transactions.
+	 */
+	private Duration latencyP99;
+
+	/**
+	 * The maximal latency of the mined transactions.
+	 */
+	private Duration latencyMax;
+
+	/**
+	 * The number of failed transactions by cause: error returned by Ganache on submission, reverted transaction or
+	 * transaction not mined before the end of the confirmation timeout.
+	 */
+	private Map<String, Long> errors;
+
+	/**
+	 * Gets the total number of failed transactions.
+	 *
+	 * @return The number of failed transactions.
+	 */
+	public long getFailedTransactions() {
+		return this.errors.values().stream().mapToLong(Long::longValue).sum();
+	}
+
+}
@@ -0,0 +1,61 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.entities;
+
+import com.github.maximevw.moka.GanacheContainer;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A sample of the resources consumed by a Ganache container at a given time.
+ *
+ * @see GanacheContainer#withResourceSampling(Duration, int)
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class ResourceSample {
+
+	/**
+	 * The time when the sample has been taken.
+	 */
+	private Instant timestamp;
+
+	/**
+	 * The CPU usage of the container in percent (100% being one fully used CPU).
+	 */
+	private double cpuPercent;
+
+	/**
+	 * The memory used by the container in bytes.
+	 */
+	private long memoryUsageInBytes;
+
+	/**
+	 * The memory limit of the container in bytes.
+	 */
+	private long memoryLimitInBytes;
+
+	/**
+	 * The heap used by the Node.js process running Ganache after the last garbage collection, in bytes, or
+	 * {@code null} if no garbage collection has been reported yet.
+	 */
+	private Long nodeHeapUsedInBytes;
+
+	/**
+	 * The heap size of the Node.js process running Ganache after the last garbage collection, in bytes, or
+	 * {@code null} if no garbage collection has been reported yet.
+	 */
+	private Long nodeHeapTotalInBytes;
+
+}
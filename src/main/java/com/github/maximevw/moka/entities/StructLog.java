@@ -0,0 +1,76 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.entities;
+
+import com.github.maximevw.moka.trace.TransactionTracer;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A step of the execution of a transaction, as returned by {@code debug_traceTransaction}.
+ *
+ * @see TransactionTracer
+ */
+@Getter
+@Builder
+@Jacksonized
+public class StructLog {
+
+	/**
+	 * The program counter.
+	 */
+	private long pc;
+
+	/**
+	 * The name of the executed opcode.
+	 */
+	private String op;
+
+	/**
+	 * The gas remaining before the execution of the opcode.
+	 */
+	private long gas;
+
+	/**
+	 * The gas cost of the opcode.
+	 */
+	private long gasCost;
+
+	/**
+	 * The depth of the call frame executing the opcode, as reported by the node: the transaction itself is at depth
+	 * 0 in the traces of Ganache (at depth 1 in the traces of geth).
+	 */
+	private int depth;
+
+	/**
+	 * The error raised by the opcode, if any.
+	 */
+	private String error;
+
+	/**
+	 * The EVM stack before the execution of the opcode (bottom first), or {@code null} when the stack is disabled.
+	 */
+	private List<String> stack;
+
+	/**
+	 * The EVM memory before the execution of the opcode, as 32-bytes words, or {@code null} when the memory is
+	 * disabled.
+	 */
+	private List<String> memory;
+
+	/**
+	 * The storage slots of the executing contract accessed so far, or {@code null} when the storage is disabled.
+	 */
+	private Map<String, String> storage;
+
+}
@@ -9,19 +9,38 @@
 package com.github.maximevw.moka.entities;
 
 import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.rpc.GanacheJsonRpc;
+import com.github.maximevw.moka.tx.LocalNonceTransactionManager;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 import org.web3j.crypto.Credentials;
+import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthBlock;
 import org.web3j.protocol.core.methods.response.EthGetBalance;
+import org.web3j.protocol.core.methods.response.Transaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.tx.ClientTransactionManager;
+import org.web3j.tx.TransactionManager;
 import org.web3j.utils.Convert;
+import org.web3j.utils.Numeric;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 /**
  * A testing account generated by Ganache.
@@ -61,13 +80,70 @@ public class TestingAccount {
 	@Setter(AccessLevel.NONE)
 	private BigInteger lastBalance;
 
+	@Getter(AccessLevel.NONE)
+	private final AtomicReference<Credentials> credentials = new AtomicReference<>();
+
+	@Getter(AccessLevel.NONE)
+	private final AtomicReference<BoundTransactionManager> transactionManager = new AtomicReference<>();
+
 	/**
 	 * Gets the credentials of the account usable in Web3j methods.
+	 * <p>
+	 *     The credentials are created once, since the derivation of the public key from the private key is costly.
+	 * </p>
 	 *
 	 * @return The credentials.
 	 */
 	public Credentials getCredentials() {
-		return Credentials.create(this.privateKey);
+		if (this.credentials.get() == null) {
+			this.credentials.compareAndSet(null, Credentials.create(this.privateKey));
+		}
+		return this.credentials.get();
+	}
+
+	/**
+	 * Gets the transaction manager of the account, shared by all the callers so the transactions can be sent
+	 * concurrently from this account.
+	 * <p>
+	 *     When the private key of the account is known, the transactions are signed locally and the nonces are
+	 *     tracked locally (see {@link LocalNonceTransactionManager}), avoiding a call to
+	 *     {@code eth_getTransactionCount} and the nonce races between concurrent senders. Otherwise, the transactions
+	 *     are sent with {@code eth_sendTransaction} (see {@link ClientTransactionManager}): the account must be
+	 *     unlocked and Ganache assigns the nonces.<br>
+	 *     The transaction manager is created again when the Web3j instance of the container is renewed (for example
+	 *     after a restart of the container, see {@link GanacheContainer#recycleIfNeeded()}). The nonces tracked
+	 *     locally are resynchronized after each revert of the chain state through
+	 *     {@link GanacheJsonRpc#revert(String)}.
+	 * </p>
+	 *
+	 * @return The transaction manager.
+	 * @throws IllegalStateException when the chain ID cannot be retrieved.
+	 */
+	public TransactionManager transactionManager() {
+		final Web3j web3j = this.ganacheInstance.getWeb3j();
+		final BoundTransactionManager currentManager = this.transactionManager.get();
+		if (currentManager == null || currentManager.getWeb3j() != web3j) {
+			final TransactionManager newManager = createTransactionManager(web3j);
+			if (this.transactionManager.compareAndSet(currentManager, new BoundTransactionManager(web3j, newManager))
+				&& newManager instanceof LocalNonceTransactionManager) {
+				// The nonces tracked locally are no longer valid once the chain state is reverted to a snapshot.
+				this.ganacheInstance.getGanacheJsonRpc()
+					.addRevertListener(((LocalNonceTransactionManager) newManager)::resetNonce);
+			}
+		}
+		return this.transactionManager.get().getTransactionManager();
+	}
+
+	private TransactionManager createTransactionManager(final Web3j web3j) {
+		if (this.privateKey == null) {
+			return new ClientTransactionManager(web3j, this.address);
+		}
+		try {
+			return new LocalNonceTransactionManager(web3j, getCredentials(),
+				web3j.ethChainId().send().getChainId().longValue());
+		} catch (final IOException ex) {
+			throw new IllegalStateException("Unable to get the chain ID.", ex);
+		}
 	}
 
 	/**
@@ -113,6 +189,128 @@ public class TestingAccount {
 		return getBalance().getValueIn(Convert.Unit.ETHER);
 	}
 
+	/**
+	 * Gets the number of the last block of the chain of the Ganache container having generated this account.
+	 *
+	 * @return The number of the last block.
+	 * @throws IllegalStateException when the request fails.
+	 */
+	public BigInteger getLatestBlockNumber() {
+		return this.ganacheInstance.getGanacheJsonRpc().getBlockNumber();
+	}
+
+	/**
+	 * Waits for a new block in the chain of the Ganache container having generated this account (see
+	 * {@link GanacheJsonRpc#awaitBlockAfter(BigInteger, Duration)}).
+	 *
+	 * @param blockNumber The number of the last known block.
+	 * @param timeout	  The maximal time to wait.
+	 * @return The number of the last block once more recent than the given one, or an empty {@link Optional} if no
+	 * 		   new block has been mined before the timeout.
+	 * @throws IllegalStateException when the request fails.
+	 */
+	public Optional<BigInteger> awaitBlockAfter(final BigInteger blockNumber, final Duration timeout) {
+		return this.ganacheInstance.getGanacheJsonRpc().awaitBlockAfter(blockNumber, timeout);
+	}
+
+	/**
+	 * Computes the variation of the balance of the account in the blocks including the given transactions, and the
+	 * variation expected from these transactions: the values they transferred to or from the account, and the gas
+	 * fees paid by the account ({@code gasUsed} multiplied by the {@code effectiveGasPrice} of the receipt, or by the
+	 * gas price of the transaction when the receipt does not provide it, like with Ganache v6).
+	 * <p>
+	 *     The receipts and the transactions are fetched in JSON-RPC batches, and the balances are read at each block
+	 *     including one of the transactions and at the block preceding it. So the other tests may use the account
+	 *     concurrently in the blocks between the transactions: only the blocks including the transactions are
+	 *     scanned, and the computation fails if another transaction of these blocks is sent from or to this account
+	 *     or if the account is the miner of one of these blocks.<br>
+	 *     Note that the ETH sent to or from the account by contracts (internal transfers) is not detected in the
+	 *     other transactions of these blocks: it is included in the actual variation without failing the
+	 *     computation.
+	 * </p>
+	 *
+	 * @param transactionHashes The hashes of the transactions.
+	 * @return The actual and expected variations of the balance.
+	 * @throws IllegalArgumentException when no transaction is provided.
+	 * @throws IllegalStateException when a transaction is not mined, the requests fail or other transactions involving
+	 * 								 this account are mined in the same blocks.
+	 */
+	public BalanceChange getBalanceChange(final Collection<String> transactionHashes) {
+		if (transactionHashes.isEmpty()) {
+			throw new IllegalArgumentException("At least one transaction is required to compute a balance change.");
+		}
+		final GanacheJsonRpc ganacheJsonRpc = this.ganacheInstance.getGanacheJsonRpc();
+		final List<String> hashes = new ArrayList<>(transactionHashes);
+		final List<TransactionReceipt> receipts = ganacheJsonRpc.getTransactionReceipts(hashes);
+		final List<Transaction> transactions = ganacheJsonRpc.getTransactions(hashes);
+		BigInteger expectedVariation = BigInteger.ZERO;
+		BigInteger gasFees = BigInteger.ZERO;
+		for (int i = 0; i < hashes.size(); i++) {
+			final TransactionReceipt receipt = receipts.get(i);
+			final Transaction transaction = transactions.get(i);
+			if (receipt == null || transaction == null) {
+				throw new IllegalStateException("The transaction " + hashes.get(i) + " is not mined.");
+			}
+			if (this.address.equalsIgnoreCase(transaction.getFrom())) {
+				final BigInteger fee = receipt.getGasUsed().multiply(Optional.ofNullable(receipt.getEffectiveGasPrice())
+					.map(Numeric::decodeQuantity)
+					.orElse(transaction.getGasPrice()));
+				gasFees = gasFees.add(fee);
+				expectedVariation = expectedVariation.subtract(fee);
+				if (receipt.isStatusOK()) {
+					expectedVariation = expectedVariation.subtract(transaction.getValue());
+				}
+			}
+			if (this.address.equalsIgnoreCase(transaction.getTo()) && receipt.isStatusOK()) {
+				expectedVariation = expectedVariation.add(transaction.getValue());
+			}
+		}
+		final List<BigInteger> blocks = receipts.stream().map(TransactionReceipt::getBlockNumber)
+			.distinct()
+			.sorted()
+			.collect(Collectors.toList());
+		checkNoOtherTransaction(ganacheJsonRpc, hashes, blocks);
+		final List<BigInteger> balanceBlocks = new ArrayList<>();
+		blocks.forEach(block -> balanceBlocks.addAll(Arrays.asList(block.subtract(BigInteger.ONE), block)));
+		final List<BigInteger> balances = ganacheJsonRpc.getBalances(this.address, balanceBlocks);
+		BigInteger actualVariation = BigInteger.ZERO;
+		for (int i = 0; i < balances.size(); i += 2) {
+			actualVariation = actualVariation.add(balances.get(i + 1).subtract(balances.get(i)));
+		}
+		return BalanceChange.builder()
+			.fromBlock(blocks.get(0))
+			.toBlock(blocks.get(blocks.size() - 1))
+			.blocks(blocks)
+			.expectedVariation(expectedVariation)
+			.actualVariation(actualVariation)
+			.gasFees(gasFees)
+			.build();
+	}
+
+	private void checkNoOtherTransaction(final GanacheJsonRpc ganacheJsonRpc, final Collection<String> hashes,
+										 final List<BigInteger> blocks) {
+		final Set<String> expectedHashes = hashes.stream()
+			.map(hash -> hash.toLowerCase(Locale.ROOT))
+			.collect(Collectors.toSet());
+		for (final EthBlock.Block block : ganacheJsonRpc.getBlocks(blocks)) {
+			if (this.address.equalsIgnoreCase(block.getMiner())) {
+				throw new IllegalStateException("The balance change of " + this.address + " cannot be computed: the "
+					+ "account is the miner of the block " + block.getNumber() + ".");
+			}
+			block.getTransactions().stream()
+				.map(result -> (Transaction) result.get())
+				.filter(transaction -> !expectedHashes.contains(transaction.getHash().toLowerCase(Locale.ROOT)))
+				.filter(transaction -> this.address.equalsIgnoreCase(transaction.getFrom())
+					|| this.address.equalsIgnoreCase(transaction.getTo()))
+				.findFirst()
+				.ifPresent(transaction -> {
+					throw new IllegalStateException("The balance change of " + this.address + " cannot be computed: "
+						+ "the transaction " + transaction.getHash() + " also involves the account in the block "
+						+ block.getNumber() + ".");
+				});
+		}
+	}
+
 	/**
 	 * Creates a new checkpoint of the account state.
 	 */
@@ -120,4 +318,23 @@ public class TestingAccount {
 		this.lastBalance = getBalanceInWei();
 	}
 
+	/**
+	 * A transaction manager with the Web3j instance it has been created with.
+	 */
+	@Getter
+	@AllArgsConstructor
+	private static final class BoundTransactionManager {
+
+		/**
+		 * The Web3j instance used by the transaction manager.
+		 */
+		private final Web3j web3j;
+
+		/**
+		 * The transaction manager.
+		 */
+		private final TransactionManager transactionManager;
+
+	}
+
 }
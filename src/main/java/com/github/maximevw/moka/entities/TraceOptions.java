@@ -0,0 +1,45 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.entities;
+
+import com.github.maximevw.moka.trace.TransactionTracer;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * The options of a transaction trace, passed to {@code debug_traceTransaction}.
+ * <p>
+ *     The stack, memory and storage are included in each step by default. Disabling the ones which are not needed
+ *     greatly reduces the size of the trace.
+ * </p>
+ *
+ * @see TransactionTracer
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class TraceOptions {
+
+	/**
+	 * Whether the EVM stack must be omitted from the steps.
+	 */
+	private boolean disableStack;
+
+	/**
+	 * Whether the EVM memory must be omitted from the steps.
+	 */
+	private boolean disableMemory;
+
+	/**
+	 * Whether the storage must be omitted from the steps.
+	 */
+	private boolean disableStorage;
+
+}
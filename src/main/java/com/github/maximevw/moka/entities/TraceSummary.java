@@ -0,0 +1,46 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.entities;
+
+import com.github.maximevw.moka.trace.TransactionTracer;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * The outcome of a transaction trace, the steps themselves being streamed to a consumer.
+ *
+ * @see TransactionTracer
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class TraceSummary {
+
+	/**
+	 * The gas used by the transaction.
+	 */
+	private long gas;
+
+	/**
+	 * Whether the transaction failed.
+	 */
+	private boolean failed;
+
+	/**
+	 * The data returned by the transaction, as a hexadecimal string.
+	 */
+	private String returnValue;
+
+	/**
+	 * The number of traced steps.
+	 */
+	private long stepsCount;
+
+}
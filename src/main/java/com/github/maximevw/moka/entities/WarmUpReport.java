@@ -0,0 +1,73 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.entities;
+
+import com.github.maximevw.moka.fork.ForkCachingProxy;
+import com.github.maximevw.moka.fork.ForkWarmUp;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * The report of the warm-up of a forked chain by a {@link ForkWarmUp}.
+ * <p>
+ *     The requests sent to the upstream node and the cache hits are only counted when the forked container goes
+ *     through a {@link ForkCachingProxy} given to the warm-up; otherwise they are always zero.
+ * </p>
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class WarmUpReport {
+
+	/**
+	 * The duration of the warm-up.
+	 */
+	private Duration duration;
+
+	/**
+	 * The number of warmed-up accounts (code and balance).
+	 */
+	private int accounts;
+
+	/**
+	 * The number of warmed-up storage slots.
+	 */
+	private int storageSlots;
+
+	/**
+	 * The number of requests sent to the forked container.
+	 */
+	private int requests;
+
+	/**
+	 * The number of requests of the forked container to its upstream served from the cache of the proxy.
+	 */
+	private long cacheHits;
+
+	/**
+	 * The number of requests of the forked container actually sent to the upstream node by the proxy.
+	 */
+	private long upstreamRequests;
+
+	/**
+	 * Gets the ratio of the requests of the forked container to its upstream served from the cache of the proxy.
+	 *
+	 * @return The cache hit ratio, between 0 and 1 (0 when the forked container has not requested its upstream).
+	 */
+	public double getCacheHitRatio() {
+		if (this.cacheHits + this.upstreamRequests == 0) {
+			return 0;
+		}
+		return (double) this.cacheHits / (this.cacheHits + this.upstreamRequests);
+	}
+
+}
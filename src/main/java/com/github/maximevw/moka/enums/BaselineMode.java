@@ -0,0 +1,33 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.enums;
+
+import com.github.maximevw.moka.gas.GasBaseline;
+
+/**
+ * The behaviour of a gas baseline when a measured gas exceeds the baseline.
+ *
+ * @see GasBaseline
+ */
+public enum BaselineMode {
+
+	/**
+	 * The assertion fails.
+	 */
+	FAIL,
+	/**
+	 * A warning is logged.
+	 */
+	WARN,
+	/**
+	 * The measured gas replaces the baseline when the baseline is saved, without failure nor warning.
+	 */
+	UPDATE
+
+}
@@ -0,0 +1,234 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.events;
+
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.rpc.GanacheJsonRpc;
+import lombok.extern.slf4j.Slf4j;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.Log;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * An in-memory index of the logs emitted in a Ganache container, by contract address, first topic (the event
+ * signature) and block number.
+ * <p>
+ *     The index follows the chain incrementally: before each lookup, only the blocks mined since the previous lookup
+ *     are fetched (in a single {@code eth_getLogs} call), so the lookups themselves never scan the node. When the
+ *     chain has been rewritten since the last indexed block (for example by {@code evm_revert}), the index is
+ *     rebuilt from its first block.<br>
+ *     The logs emitted before the first indexed block (by default, the last block when the index is created) are not
+ *     indexed: this avoids fetching the history of the forked chain when Ganache runs in fork mode.
+ * </p>
+ */
+@Slf4j(topic = "GanacheContainer")
+public class EventIndex {
+
+	private final GanacheContainer<?> ganacheContainer;
+	private final BigInteger firstBlock;
+	private final Map<String, List<Log>> logsByAddress = new HashMap<>();
+	private final Map<String, List<Log>> logsByTopic = new HashMap<>();
+	private final NavigableMap<BigInteger, List<Log>> logsByBlock = new TreeMap<>();
+	private BigInteger lastIndexedBlock;
+	private String lastIndexedBlockHash;
+	private BigInteger checkpointBlock;
+
+	/**
+	 * Constructor indexing the logs emitted after the last block of the container.
+	 *
+	 * @param ganacheContainer The Ganache container emitting the indexed logs.
+	 * @throws IllegalStateException when the last block cannot be retrieved.
+	 */
+	public EventIndex(final GanacheContainer<?> ganacheContainer) {
+		this(ganacheContainer, ganacheContainer.getGanacheJsonRpc().getBlockNumber().add(BigInteger.ONE));
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param ganacheContainer The Ganache container emitting the indexed logs.
+	 * @param firstBlock	   The number of the first indexed block.
+	 * @throws IllegalArgumentException when the first block is negative.
+	 */
+	public EventIndex(final GanacheContainer<?> ganacheContainer, final BigInteger firstBlock) {
+		if (firstBlock.signum() < 0) {
+			throw new IllegalArgumentException("The first indexed block cannot be negative.");
+		}
+		this.ganacheContainer = ganacheContainer;
+		this.firstBlock = firstBlock;
+		this.lastIndexedBlock = firstBlock.subtract(BigInteger.ONE);
+		this.checkpointBlock = this.lastIndexedBlock;
+	}
+
+	/**
+	 * Indexes the logs of the blocks mined since the last call, then saves the last indexed block as checkpoint: the
+	 * lookups "since the last checkpoint" only consider the logs emitted after this block.
+	 * <p>
+	 *     The checkpoint is a block number: when the chain is rewritten below it, it is lowered to the last block of
+	 *     the new chain at the time the rewrite is detected. Take a new checkpoint after reverting the chain.
+	 * </p>
+	 *
+	 * @return The number of the checkpoint block.
+	 * @throws IllegalStateException when the logs cannot be retrieved.
+	 */
+	public synchronized BigInteger checkpoint() {
+		synchronize();
+		this.checkpointBlock = this.lastIndexedBlock;
+		return this.checkpointBlock;
+	}
+
+	/**
+	 * Finds the logs emitted since the last checkpoint.
+	 *
+	 * @param contractAddress The address of the contract emitting the logs, or {@code null} for any contract.
+	 * @param topics		  The expected first topics of the logs (the first one being the event signature). A
+	 *                        {@code null} topic matches any value.
+	 * @return The matching logs, in the order of their emission.
+	 * @throws IllegalStateException when the new logs cannot be retrieved.
+	 * @see #checkpoint()
+	 */
+	public synchronized List<Log> findLogsSinceCheckpoint(final String contractAddress, final List<String> topics) {
+		synchronize();
+		return lookup(contractAddress, topics, this.checkpointBlock.add(BigInteger.ONE), this.lastIndexedBlock);
+	}
+
+	/**
+	 * Finds the logs emitted in a range of blocks.
+	 *
+	 * @param contractAddress The address of the contract emitting the logs, or {@code null} for any contract.
+	 * @param topics		  The expected first topics of the logs (the first one being the event signature). A
+	 *                        {@code null} topic matches any value.
+	 * @param fromBlock		  The number of the first block of the range (inclusive).
+	 * @param toBlock		  The number of the last block of the range (inclusive).
+	 * @return The matching logs, in the order of their emission.
+	 * @throws IllegalStateException when the new logs cannot be retrieved.
+	 */
+	public synchronized List<Log> findLogs(final String contractAddress, final List<String> topics,
+										   final BigInteger fromBlock, final BigInteger toBlock) {
+		synchronize();
+		return lookup(contractAddress, topics, fromBlock, toBlock);
+	}
+
+	/**
+	 * Gets the logs emitted in a block.
+	 *
+	 * @param blockNumber The number of the block.
+	 * @return The logs of the block, in the order of their emission.
+	 * @throws IllegalStateException when the new logs cannot be retrieved.
+	 */
+	public synchronized List<Log> getBlockLogs(final BigInteger blockNumber) {
+		synchronize();
+		return new ArrayList<>(this.logsByBlock.getOrDefault(blockNumber, Collections.emptyList()));
+	}
+
+	/**
+	 * Indexes the logs of the blocks mined since the last indexed block.
+	 *
+	 * @throws IllegalStateException when the logs cannot be retrieved.
+	 */
+	public synchronized void synchronize() {
+		final GanacheJsonRpc ganacheJsonRpc = this.ganacheContainer.getGanacheJsonRpc();
+		final Web3j web3j = this.ganacheContainer.getWeb3j();
+		final List<Request<?, EthBlock>> requests = new ArrayList<>();
+		requests.add(web3j.ethGetBlockByNumber(DefaultBlockParameterName.LATEST, false));
+		if (this.lastIndexedBlockHash != null) {
+			requests.add(web3j.ethGetBlockByNumber(DefaultBlockParameter.valueOf(this.lastIndexedBlock), false));
+		}
+		final List<Response<?>> responses = ganacheJsonRpc.sendBatch(requests);
+		final EthBlock.Block latestBlock = ((EthBlock) responses.get(0)).getBlock();
+		if (this.lastIndexedBlockHash != null) {
+			final EthBlock.Block lastIndexedBlockNow = ((EthBlock) responses.get(1)).getBlock();
+			if (lastIndexedBlockNow == null || !this.lastIndexedBlockHash.equals(lastIndexedBlockNow.getHash())) {
+				log.debug("The chain has been rewritten since the block {}: rebuilding the events index.",
+					this.lastIndexedBlock);
+				clear();
+				this.checkpointBlock = this.checkpointBlock.min(latestBlock.getNumber());
+			}
+		}
+		if (latestBlock.getNumber().compareTo(this.lastIndexedBlock) <= 0) {
+			return;
+		}
+		ganacheJsonRpc.getLogs(this.lastIndexedBlock.add(BigInteger.ONE), latestBlock.getNumber()).forEach(this::add);
+		this.lastIndexedBlock = latestBlock.getNumber();
+		this.lastIndexedBlockHash = latestBlock.getHash();
+	}
+
+	private List<Log> lookup(final String contractAddress, final List<String> topics, final BigInteger fromBlock,
+							 final BigInteger toBlock) {
+		if (fromBlock.compareTo(toBlock) > 0) {
+			return new ArrayList<>();
+		}
+		final Collection<Log> candidates;
+		if (contractAddress != null) {
+			candidates = this.logsByAddress.getOrDefault(normalize(contractAddress), Collections.emptyList());
+		} else if (!topics.isEmpty() && topics.get(0) != null) {
+			candidates = this.logsByTopic.getOrDefault(normalize(topics.get(0)), Collections.emptyList());
+		} else {
+			candidates = this.logsByBlock.subMap(fromBlock, true, toBlock, true).values().stream()
+				.flatMap(List::stream)
+				.collect(Collectors.toList());
+		}
+		return candidates.stream()
+			.filter(indexedLog -> indexedLog.getBlockNumber().compareTo(fromBlock) >= 0
+				&& indexedLog.getBlockNumber().compareTo(toBlock) <= 0)
+			.filter(indexedLog -> matchesTopics(indexedLog, topics))
+			.collect(Collectors.toList());
+	}
+
+	private void add(final Log indexedLog) {
+		this.logsByAddress.computeIfAbsent(normalize(indexedLog.getAddress()), key -> new ArrayList<>())
+			.add(indexedLog);
+		if (!indexedLog.getTopics().isEmpty()) {
+			this.logsByTopic.computeIfAbsent(normalize(indexedLog.getTopics().get(0)), key -> new ArrayList<>())
+				.add(indexedLog);
+		}
+		this.logsByBlock.computeIfAbsent(indexedLog.getBlockNumber(), key -> new ArrayList<>()).add(indexedLog);
+	}
+
+	private void clear() {
+		this.logsByAddress.clear();
+		this.logsByTopic.clear();
+		this.logsByBlock.clear();
+		this.lastIndexedBlock = this.firstBlock.subtract(BigInteger.ONE);
+		this.lastIndexedBlockHash = null;
+	}
+
+	private static boolean matchesTopics(final Log indexedLog, final List<String> topics) {
+		if (topics.size() > indexedLog.getTopics().size()) {
+			return false;
+		}
+		for (int i = 0; i < topics.size(); i++) {
+			if (topics.get(i) != null && !normalize(topics.get(i)).equals(normalize(indexedLog.getTopics().get(i)))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String normalize(final String hexValue) {
+		return hexValue.toLowerCase(Locale.ROOT);
+	}
+
+}
@@ -0,0 +1,235 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.fixtures;
+
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.entities.ContractFixture;
+import com.github.maximevw.moka.entities.TestingAccount;
+import lombok.extern.slf4j.Slf4j;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthEstimateGas;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.protocol.exceptions.TransactionException;
+import org.web3j.tx.response.PollingTransactionReceiptProcessor;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Contracts deployed once in a Ganache container and shared by all the tests using this container.
+ * <p>
+ *     The deployments are memoized by deployer, bytecode and constructor arguments. Once a contract is deployed, a
+ *     snapshot of the chain state is taken ({@code evm_snapshot}). Each further request for a fixture reverts the
+ *     chain to this snapshot ({@code evm_revert}), so the consumers get the same contract addresses, in the same
+ *     state, without paying the cost of the deployment again.<br>
+ *     Note that reverting to the fixtures snapshot also discards all the changes made to the chain since the last
+ *     request for a fixture: the testing accounts of the container are checkpointed again after each revert, and
+ *     the nonces tracked locally by their transaction managers are resynchronized.
+ * </p>
+ * <p>
+ *     Ganache only releases a snapshot when the chain is reverted to it or to an older one: one snapshot is kept per
+ *     deployed fixture (the state before its deployment, used to discard a failed deployment) in addition to the
+ *     current fixtures snapshot. They are all released by {@link #release()}.
+ * </p>
+ */
+@Slf4j(topic = "GanacheContainer")
+public final class ContractFixtures {
+
+	private static final long RECEIPT_POLLING_INTERVAL_IN_MILLIS = 100;
+	private static final int RECEIPT_POLLING_ATTEMPTS = 600;
+	// Identity keys: the containers are mutable and their equality is value-based.
+	private static final Map<GanacheContainer<?>, ContractFixtures> CONTAINERS_FIXTURES =
+		Collections.synchronizedMap(new IdentityHashMap<>());
+
+	private final GanacheContainer<?> ganacheContainer;
+	private final Map<String, ContractFixture> fixtures = new HashMap<>();
+	// The snapshots of the successive fixtures states, the most recent first.
+	private final Deque<String> snapshotIds = new ArrayDeque<>();
+	private Web3j web3j;
+
+	private ContractFixtures(final GanacheContainer<?> ganacheContainer) {
+		this.ganacheContainer = ganacheContainer;
+	}
+
+	/**
+	 * Gets the contracts deployed once in a Ganache container and shared between the tests.
+	 * <p>
+	 *     The fixtures are deployed again after a restart of the container, since the snapshots are not persisted
+	 *     by Ganache.
+	 * </p>
+	 *
+	 * @param ganacheContainer The Ganache container in which the contracts are deployed.
+	 * @return The contract fixtures of the container.
+	 */
+	public static ContractFixtures of(final GanacheContainer<?> ganacheContainer) {
+		return CONTAINERS_FIXTURES.computeIfAbsent(ganacheContainer, ContractFixtures::new);
+	}
+
+	/**
+	 * Gets a contract without constructor arguments, deploying it only if it has not been deployed yet by the same
+	 * deployer. In both cases, the chain is reverted to the state of the fixtures before.
+	 *
+	 * @param deployer The testing account deploying the contract if needed. It must be unlocked in Ganache.
+	 * @param bytecode The bytecode of the contract.
+	 * @return The deployed contract.
+	 * @throws IllegalStateException when the deployment fails or the fixtures snapshot no longer exists.
+	 * @see #deployOnce(TestingAccount, String, List)
+	 */
+	public ContractFixture deployOnce(final TestingAccount deployer, final String bytecode) {
+		return deployOnce(deployer, bytecode, Collections.emptyList());
+	}
+
+	/**
+	 * Gets a contract, deploying it only if it has not been deployed yet by the same deployer with the same
+	 * constructor arguments. In both cases, the chain is reverted to the state of the fixtures before.
+	 * <p>
+	 *     The deployment is sent with {@code eth_sendTransaction}, so the deployer account must be unlocked in
+	 *     Ganache. The contracts deployed after the fixtures snapshot (for example by a previous test) are discarded
+	 *     before deploying a new fixture, so its address only depends on the fixtures deployed before.
+	 * </p>
+	 *
+	 * @param deployer		  The testing account deploying the contract if needed. It must be unlocked in Ganache.
+	 * @param bytecode		  The bytecode of the contract.
+	 * @param constructorArgs The arguments of the contract constructor.
+	 * @return The deployed contract.
+	 * @throws IllegalStateException when the deployment fails or the fixtures snapshot no longer exists.
+	 */
+	@SuppressWarnings("rawtypes")
+	public synchronized ContractFixture deployOnce(final TestingAccount deployer, final String bytecode,
+												   final List<Type> constructorArgs) {
+		final String deploymentData = Numeric.prependHexPrefix(bytecode)
+			+ FunctionEncoder.encodeConstructor(constructorArgs);
+		final String fixtureKey = (deployer.getAddress() + deploymentData).toLowerCase(Locale.ROOT);
+		revert();
+		final ContractFixture memoizedFixture = this.fixtures.get(fixtureKey);
+		if (memoizedFixture != null) {
+			return memoizedFixture;
+		}
+		// Before the first fixture, there is no fixtures snapshot to revert to if the deployment fails: take one.
+		if (this.snapshotIds.isEmpty()) {
+			this.snapshotIds.push(this.ganacheContainer.getGanacheJsonRpc().snapshot());
+		}
+		final ContractFixture fixture;
+		try {
+			fixture = deploy(deployer.getAddress(), deploymentData);
+		} catch (final RuntimeException ex) {
+			// Discard the possible side effects of the failed deployment (e.g. the increased nonce of the deployer).
+			revert();
+			throw ex;
+		}
+		this.fixtures.put(fixtureKey, fixture);
+		// The snapshot of the previous state is kept below the new one, to discard a further failed deployment.
+		this.snapshotIds.push(this.ganacheContainer.getGanacheJsonRpc().snapshot());
+		log.debug("Contract fixture deployed at {}.", fixture.getContractAddress());
+		return fixture;
+	}
+
+	/**
+	 * Reverts the chain to the state of the fixtures, discarding all the changes made since the last request for a
+	 * fixture. This does nothing if no fixture has been deployed yet.
+	 *
+	 * @throws IllegalStateException when the fixtures snapshot no longer exists (for example because the chain has
+	 * 								 been reverted to an older snapshot in the meantime).
+	 */
+	public synchronized void revert() {
+		resetIfRestarted();
+		if (this.snapshotIds.isEmpty()) {
+			return;
+		}
+		revertTo(this.snapshotIds.pop());
+		// Reverting to a snapshot consumes it: take a new one of the same state for the next consumers.
+		this.snapshotIds.push(this.ganacheContainer.getGanacheJsonRpc().snapshot());
+	}
+
+	/**
+	 * Discards all the fixtures and reverts the chain to its state before the deployment of the first fixture,
+	 * releasing the snapshots taken by the fixtures. This does nothing if no fixture has been deployed yet.
+	 *
+	 * @throws IllegalStateException when the snapshot taken before the first fixture no longer exists.
+	 */
+	public synchronized void release() {
+		resetIfRestarted();
+		if (this.snapshotIds.isEmpty()) {
+			return;
+		}
+		final String firstSnapshotId = this.snapshotIds.getLast();
+		this.snapshotIds.clear();
+		this.fixtures.clear();
+		revertTo(firstSnapshotId);
+	}
+
+	private void revertTo(final String snapshotId) {
+		if (!this.ganacheContainer.getGanacheJsonRpc().revert(snapshotId)) {
+			this.snapshotIds.clear();
+			this.fixtures.clear();
+			throw new IllegalStateException("The snapshot of the contract fixtures no longer exists.");
+		}
+		// The nonces tracked locally are resynchronized by the revert listeners of the testing accounts.
+		this.ganacheContainer.getTestingAccounts().values().forEach(TestingAccount::checkpoint);
+	}
+
+	private void resetIfRestarted() {
+		final Web3j currentWeb3j = this.ganacheContainer.getWeb3j();
+		if (this.web3j != currentWeb3j) {
+			// The snapshots are not persisted by Ganache: the contract fixtures must be deployed again after a restart.
+			this.snapshotIds.clear();
+			this.fixtures.clear();
+			this.web3j = currentWeb3j;
+		}
+	}
+
+	private ContractFixture deploy(final String deployerAddress, final String deploymentData) {
+		final Web3j web3j = this.ganacheContainer.getWeb3j();
+		try {
+			final EthEstimateGas gasEstimation = web3j.ethEstimateGas(
+				Transaction.createContractTransaction(deployerAddress, null, null, deploymentData)).send();
+			checkNoError(gasEstimation);
+			final EthSendTransaction sentTransaction = web3j.ethSendTransaction(
+				Transaction.createContractTransaction(deployerAddress, null, null, gasEstimation.getAmountUsed(),
+					BigInteger.ZERO, deploymentData)).send();
+			checkNoError(sentTransaction);
+			final TransactionReceipt receipt = new PollingTransactionReceiptProcessor(web3j,
+				RECEIPT_POLLING_INTERVAL_IN_MILLIS, RECEIPT_POLLING_ATTEMPTS)
+				.waitForTransactionReceipt(sentTransaction.getTransactionHash());
+			if (!receipt.isStatusOK()) {
+				throw new IllegalStateException("The deployment of the contract fixture has been reverted.");
+			}
+			return ContractFixture.builder()
+				.contractAddress(receipt.getContractAddress())
+				.transactionHash(receipt.getTransactionHash())
+				.deployerAddress(deployerAddress)
+				.blockNumber(receipt.getBlockNumber())
+				.build();
+		} catch (final IOException | TransactionException ex) {
+			throw new IllegalStateException("Unable to deploy the contract fixture.", ex);
+		}
+	}
+
+	private static void checkNoError(final Response<?> response) {
+		if (response.hasError()) {
+			throw new IllegalStateException("Unable to deploy the contract fixture: "
+				+ response.getError().getMessage());
+		}
+	}
+
+}
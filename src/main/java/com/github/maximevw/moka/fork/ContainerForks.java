@@ -0,0 +1,102 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.fork;
+
+import com.github.dockerjava.api.model.ContainerNetwork;
+import com.github.maximevw.moka.GanacheContainer;
+import lombok.extern.slf4j.Slf4j;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.Network;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Utility methods to fork a Ganache container from another one (see {@link GanacheContainer#withForkFrom}): both
+ * containers share a Docker network, on which the derived container reaches the base container through its network
+ * alias, and the derived container forks from the latest block of the base container when it starts.
+ */
+@Slf4j(topic = "GanacheContainer")
+public final class ContainerForks {
+
+	// Identity keys: the containers are mutable and their equality is value-based.
+	private static final Map<GanacheContainer<?>, Network> CREATED_NETWORKS =
+		Collections.synchronizedMap(new IdentityHashMap<>());
+
+	private ContainerForks() {
+		// Private constructor hiding the public default one.
+	}
+
+	/**
+	 * Gets the Docker network of a base container, to be shared with the containers forking from it. If the base
+	 * container is not attached to a network yet, a new network is created and the base container is attached to it:
+	 * at creation if the base container is not started yet, or immediately otherwise. The created network is closed
+	 * by {@link #releaseNetwork(GanacheContainer)} when the base container is stopped.
+	 *
+	 * @param baseContainer The base container.
+	 * @return The network of the base container.
+	 */
+	public static Network shareNetwork(final GanacheContainer<?> baseContainer) {
+		if (baseContainer.getNetwork() != null) {
+			return baseContainer.getNetwork();
+		}
+		final Network network = Network.newNetwork();
+		baseContainer.withNetwork(network);
+		CREATED_NETWORKS.put(baseContainer, network);
+		if (baseContainer.isRunning()) {
+			DockerClientFactory.instance().client().connectToNetworkCmd()
+				.withContainerId(baseContainer.getContainerId())
+				.withNetworkId(network.getId())
+				.withContainerNetwork(new ContainerNetwork().withAliases(baseContainer.getNetworkAliases()))
+				.exec();
+		}
+		return network;
+	}
+
+	/**
+	 * Closes the Docker network created by {@link #shareNetwork(GanacheContainer)} for a base container, if any. The
+	 * failures are only logged, since the network may still be used by containers forking from the base container.
+	 *
+	 * @param container The stopped container.
+	 */
+	public static void releaseNetwork(final GanacheContainer<?> container) {
+		final Network network = CREATED_NETWORKS.remove(container);
+		if (network != null) {
+			try {
+				network.close();
+			} catch (final RuntimeException ex) {
+				log.debug("Unable to close the network of the container {}", container.getContainerName(), ex);
+			}
+		}
+	}
+
+	/**
+	 * Builds the fork URL of a base container, reachable from the containers sharing its network and pinned to its
+	 * latest block (for example {@code http://tc-abcd1234:8545@42}).
+	 *
+	 * @param baseContainer The base container.
+	 * @return The fork URL.
+	 * @throws IllegalStateException when the base container is not started or Ganache fails to return its latest
+	 * 								 block number.
+	 */
+	public static String getPinnedForkUrl(final GanacheContainer<?> baseContainer) {
+		if (!baseContainer.isRunning()) {
+			throw new IllegalStateException("The base container must be started before the containers forking "
+				+ "from it.");
+		}
+		final BigInteger blockNumber = baseContainer.getGanacheJsonRpc().getBlockNumber();
+		final String forkUrl = String.format("http://%s:%d@%s", baseContainer.getNetworkAliases().get(0),
+			baseContainer.getGanachePort(), blockNumber);
+		log.info("Forking from the base container {} at block {}", baseContainer.getContainerName(), blockNumber);
+		return forkUrl;
+	}
+
+}
@@ -0,0 +1,418 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.fork;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.maximevw.moka.GanacheContainer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.testcontainers.Testcontainers;
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A caching JSON-RPC proxy running in the JVM of the tests, between a forked Ganache container and the upstream node
+ * it forks from (see {@link GanacheContainer#withForkUrl(String)}).
+ * <p>
+ *     The results of the requests which cannot change anymore are persisted in a local memory-mapped store and served
+ *     from this store when the same requests are received again, even in subsequent runs of the tests. Thus, once
+ *     the store is populated, a forked test suite starts fast, is not throttled by the upstream rate limits (see
+ *     {@link GanacheContainer#withForkRequestsPerSecond(int)}) and can even run offline. The cached requests are:
+ *     {@code eth_chainId}, {@code net_version}, {@code eth_getBlockByHash} and the requests pinned to a block number
+ *     or hash ({@code eth_getCode}, {@code eth_getBalance}, {@code eth_getTransactionCount},
+ *     {@code eth_getStorageAt}, {@code eth_getProof}, {@code eth_call} and {@code eth_getBlockByNumber}). The other
+ *     requests and the errors are never cached.
+ * </p>
+ * <p>
+ *     Since a block designated by its number may still be replaced by a chain reorganization, the requests pinned to
+ *     a block number are only cached once the block has enough confirmations on the upstream node (by default
+ *     {@value #DEFAULT_FINALITY_CONFIRMATIONS}). The cacheable requests of a JSON-RPC batch which are not stored yet
+ *     are forwarded together to the upstream node, in a single batch.
+ * </p>
+ * <p>
+ *     Ganache requests pinned data only when the fork block is fixed: the option
+ *     {@link GanacheContainer#withForkBlockNumber(org.web3j.protocol.core.DefaultBlockParameter)} should be set to a
+ *     block number. The same store file must not be shared between proxies of different chains. The upstream may be
+ *     any node reachable from the JVM, including another Ganache container (see {@link GanacheContainer#getNodeUri()}).
+ * </p>
+ * Usage example:
+ * <pre>
+ * ForkCachingProxy proxy = new ForkCachingProxy("https://mainnet.infura.io/v3/KEY", Path.of("target/fork.cache"));
+ * proxy.start();
+ * GanacheContainer&lt;?&gt; ganache = new GanacheContainer&lt;&gt;()
+ *     .withForkUrl(proxy.getForkUrl())
+ *     .withForkBlockNumber(DefaultBlockParameter.valueOf(BigInteger.valueOf(17_000_000)));
+ * </pre>
+ */
+@Slf4j(topic = "GanacheContainer")
+public class ForkCachingProxy {
+
+	/**
+	 * The host name resolved to the host running the tests from the containers started by Testcontainers.
+	 */
+	public static final String CONTAINER_HOST_NAME = "host.testcontainers.internal";
+
+	/**
+	 * The default number of blocks mined on top of a block before the requests pinned to its number are cached.
+	 */
+	public static final int DEFAULT_FINALITY_CONFIRMATIONS = 64;
+
+	private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+		.version(HttpClient.Version.HTTP_1_1)
+		.build();
+	private static final int HTTP_STATUS_OK = 200;
+	private static final int HTTP_STATUS_BAD_GATEWAY = 502;
+	private static final String CONTENT_TYPE_HEADER = "Content-Type";
+	private static final String JSON_CONTENT_TYPE = "application/json";
+	private static final String RESULT_FIELD = "result";
+	private static final String ID_FIELD = "id";
+	private static final String METHOD_FIELD = "method";
+	private static final String PARAMS_FIELD = "params";
+	private static final String BLOCK_HASH_FIELD = "blockHash";
+	private static final String BLOCK_NUMBER_FIELD = "blockNumber";
+	private static final String HEX_PREFIX = "0x";
+	private static final Set<String> IMMUTABLE_METHODS = Set.of("eth_chainId", "net_version", "eth_getBlockByHash");
+	private static final Map<String, Integer> BLOCK_PARAMETER_INDEXES = Map.of(
+		"eth_getCode", 1,
+		"eth_getBalance", 1,
+		"eth_getTransactionCount", 1,
+		"eth_getStorageAt", 2,
+		"eth_getProof", 2,
+		"eth_call", 1,
+		"eth_getBlockByNumber", 0);
+
+	private final URI upstreamUri;
+	private final Path storeFile;
+	private final BigInteger finalityConfirmations;
+	private final ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+	private final AtomicLong cacheHits = new AtomicLong();
+	private final AtomicLong cacheMisses = new AtomicLong();
+	private final AtomicLong passedThroughRequests = new AtomicLong();
+	private volatile BigInteger upstreamHead = BigInteger.ZERO;
+	private MappedResponseStore store;
+	private HttpServer server;
+	private ExecutorService executor;
+
+	/**
+	 * Constructor.
+	 * <p>
+	 *     The requests pinned to a block number are cached once the block has
+	 *     {@value #DEFAULT_FINALITY_CONFIRMATIONS} confirmations.
+	 * </p>
+	 *
+	 * @param upstreamUrl The URL of the JSON-RPC endpoint of the upstream node.
+	 * @param storeFile	  The path of the file persisting the cached responses. It is created if it does not exist
+	 *                    yet.
+	 * @throws IllegalArgumentException when the specified URL is invalid.
+	 */
+	public ForkCachingProxy(final String upstreamUrl, final Path storeFile) {
+		this(upstreamUrl, storeFile, DEFAULT_FINALITY_CONFIRMATIONS);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param upstreamUrl			The URL of the JSON-RPC endpoint of the upstream node.
+	 * @param storeFile				The path of the file persisting the cached responses. It is created if it does
+	 *                              not exist yet.
+	 * @param finalityConfirmations The number of blocks which must be mined on top of a block before caching the
+	 *                              requests pinned to its number (0 to cache them immediately, for example when the
+	 *                              upstream node is a local chain without reorganizations).
+	 * @throws IllegalArgumentException when the specified URL is invalid or the number of confirmations is negative.
+	 */
+	public ForkCachingProxy(final String upstreamUrl, final Path storeFile, final int finalityConfirmations) {
+		try {
+			this.upstreamUri = URI.create(upstreamUrl);
+		} catch (final IllegalArgumentException ex) {
+			throw new IllegalArgumentException("The upstream URL is invalid.", ex);
+		}
+		if (finalityConfirmations < 0) {
+			throw new IllegalArgumentException("The number of finality confirmations cannot be negative.");
+		}
+		this.storeFile = storeFile;
+		this.finalityConfirmations = BigInteger.valueOf(finalityConfirmations);
+	}
+
+	/**
+	 * Opens the store and starts the proxy on a random port of the host, exposed to the containers started afterwards.
+	 * It must be started before the forked Ganache container.
+	 *
+	 * @throws IllegalStateException when the proxy is already started, or when the store cannot be opened or the
+	 * 								 server cannot be started.
+	 */
+	public synchronized void start() {
+		if (this.server != null) {
+			throw new IllegalStateException("The fork caching proxy is already started.");
+		}
+		try {
+			this.store = new MappedResponseStore(this.storeFile);
+			this.server = HttpServer.create(new InetSocketAddress(0), 0);
+		} catch (final IOException ex) {
+			throw new IllegalStateException("Unable to start the fork caching proxy.", ex);
+		}
+		this.executor = Executors.newCachedThreadPool(runnable -> {
+			final Thread thread = new Thread(runnable, "ganache-fork-proxy");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.server.setExecutor(this.executor);
+		this.server.createContext("/", this::handle);
+		this.server.start();
+		Testcontainers.exposeHostPorts(getPort());
+		log.info("Fork caching proxy started on port {} with {} stored responses", getPort(), this.store.size());
+	}
+
+	/**
+	 * Stops the proxy and closes the store. The stored responses remain available for the next start.
+	 */
+	public synchronized void stop() {
+		if (this.server == null) {
+			return;
+		}
+		this.server.stop(0);
+		this.executor.shutdownNow();
+		this.server = null;
+		try {
+			this.store.close();
+		} catch (final IOException ex) {
+			log.warn("Unable to close the fork cache store: {}", ex.getMessage());
+		}
+	}
+
+	/**
+	 * Gets the port of the host on which the proxy listens.
+	 *
+	 * @return The port of the proxy.
+	 * @throws IllegalStateException when the proxy is not started.
+	 */
+	public synchronized int getPort() {
+		if (this.server == null) {
+			throw new IllegalStateException("The fork caching proxy is not started.");
+		}
+		return this.server.getAddress().getPort();
+	}
+
+	/**
+	 * Gets the URL of the proxy reachable from the containers, to use as fork URL of a Ganache container.
+	 *
+	 * @return The fork URL.
+	 * @throws IllegalStateException when the proxy is not started.
+	 */
+	public String getForkUrl() {
+		return "http://" + CONTAINER_HOST_NAME + ":" + getPort();
+	}
+
+	/**
+	 * Gets the number of cacheable requests served from the store.
+	 *
+	 * @return The number of cache hits.
+	 */
+	public long getCacheHits() {
+		return this.cacheHits.get();
+	}
+
+	/**
+	 * Gets the number of cacheable requests which were not stored yet and have been forwarded to the upstream node.
+	 *
+	 * @return The number of cache misses.
+	 */
+	public long getCacheMisses() {
+		return this.cacheMisses.get();
+	}
+
+	/**
+	 * Gets the number of non-cacheable requests forwarded to the upstream node.
+	 *
+	 * @return The number of requests passed through.
+	 */
+	public long getPassedThroughRequests() {
+		return this.passedThroughRequests.get();
+	}
+
+	private void handle(final HttpExchange exchange) throws IOException {
+		try {
+			final JsonNode request = this.objectMapper.readTree(exchange.getRequestBody());
+			final JsonNode response;
+			if (request.isArray()) {
+				response = resolveBatch(request);
+			} else {
+				response = resolve(request);
+			}
+			final byte[] responseBody = this.objectMapper.writeValueAsBytes(response);
+			exchange.getResponseHeaders().add(CONTENT_TYPE_HEADER, JSON_CONTENT_TYPE);
+			exchange.sendResponseHeaders(HTTP_STATUS_OK, responseBody.length);
+			exchange.getResponseBody().write(responseBody);
+		} catch (final IOException | RuntimeException ex) {
+			log.warn("Unable to proxy the fork request: {}", ex.getMessage());
+			exchange.sendResponseHeaders(HTTP_STATUS_BAD_GATEWAY, -1);
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			exchange.sendResponseHeaders(HTTP_STATUS_BAD_GATEWAY, -1);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private JsonNode resolve(final JsonNode request) throws IOException, InterruptedException {
+		final Optional<JsonNode> storedResponse = lookUp(request);
+		if (storedResponse.isPresent()) {
+			return storedResponse.get();
+		}
+		final JsonNode response = forward(request);
+		store(request, response);
+		return response;
+	}
+
+	private JsonNode resolveBatch(final JsonNode requests) throws IOException, InterruptedException {
+		final List<JsonNode> responses = new ArrayList<>(requests.size());
+		final ArrayNode upstreamRequests = this.objectMapper.createArrayNode();
+		final List<Integer> upstreamIndexes = new ArrayList<>();
+		for (final JsonNode request : requests) {
+			final Optional<JsonNode> storedResponse = lookUp(request);
+			if (storedResponse.isEmpty()) {
+				upstreamRequests.add(request);
+				upstreamIndexes.add(responses.size());
+			}
+			responses.add(storedResponse.orElse(null));
+		}
+		if (!upstreamRequests.isEmpty()) {
+			// The requests not stored yet are forwarded in a single batch, whose responses may come in any order.
+			final Map<String, JsonNode> upstreamResponses = new HashMap<>();
+			forward(upstreamRequests).forEach(response -> upstreamResponses.put(response.path(ID_FIELD).toString(),
+				response));
+			for (final int index : upstreamIndexes) {
+				final JsonNode request = requests.get(index);
+				final JsonNode response = upstreamResponses.get(request.path(ID_FIELD).toString());
+				if (response == null) {
+					throw new IOException("The upstream node returned no response for the request "
+						+ request.path(ID_FIELD));
+				}
+				store(request, response);
+				responses.set(index, response);
+			}
+		}
+		final ArrayNode batchResponse = this.objectMapper.createArrayNode();
+		responses.forEach(batchResponse::add);
+		return batchResponse;
+	}
+
+	private Optional<JsonNode> lookUp(final JsonNode request) throws IOException {
+		final Optional<byte[]> storedResult = getCacheKey(request).flatMap(this.store::get);
+		if (storedResult.isEmpty()) {
+			return Optional.empty();
+		}
+		this.cacheHits.incrementAndGet();
+		final ObjectNode response = this.objectMapper.createObjectNode()
+			.put("jsonrpc", "2.0")
+			.set(ID_FIELD, request.path(ID_FIELD));
+		response.set(RESULT_FIELD, this.objectMapper.readTree(storedResult.get()));
+		return Optional.of(response);
+	}
+
+	private void store(final JsonNode request, final JsonNode response) throws IOException, InterruptedException {
+		final Optional<String> cacheKey = getCacheKey(request);
+		if (cacheKey.isEmpty()) {
+			this.passedThroughRequests.incrementAndGet();
+			return;
+		}
+		this.cacheMisses.incrementAndGet();
+		final JsonNode result = response.path(RESULT_FIELD);
+		if (!result.isMissingNode() && !result.isNull() && isFinalized(request)) {
+			this.store.put(cacheKey.get(), this.objectMapper.writeValueAsBytes(result));
+		}
+	}
+
+	private JsonNode forward(final JsonNode request) throws IOException, InterruptedException {
+		final HttpRequest upstreamRequest = HttpRequest.newBuilder(this.upstreamUri)
+			.header(CONTENT_TYPE_HEADER, JSON_CONTENT_TYPE)
+			.POST(HttpRequest.BodyPublishers.ofByteArray(this.objectMapper.writeValueAsBytes(request)))
+			.build();
+		final HttpResponse<byte[]> upstreamResponse = HTTP_CLIENT.send(upstreamRequest,
+			HttpResponse.BodyHandlers.ofByteArray());
+		if (upstreamResponse.statusCode() != HTTP_STATUS_OK) {
+			throw new IOException("The upstream node returned the HTTP status " + upstreamResponse.statusCode());
+		}
+		return this.objectMapper.readTree(upstreamResponse.body());
+	}
+
+	private boolean isFinalized(final JsonNode request) throws IOException, InterruptedException {
+		final Optional<BigInteger> blockNumber = getPinnedBlockNumber(request);
+		if (blockNumber.isEmpty()) {
+			// Immutable method, or request pinned to a block hash.
+			return true;
+		}
+		final BigInteger minimalHead = blockNumber.get().add(this.finalityConfirmations);
+		if (this.upstreamHead.compareTo(minimalHead) < 0) {
+			final ObjectNode blockNumberRequest = this.objectMapper.createObjectNode()
+				.put("jsonrpc", "2.0")
+				.put(ID_FIELD, 0)
+				.put(METHOD_FIELD, "eth_blockNumber");
+			blockNumberRequest.putArray(PARAMS_FIELD);
+			this.upstreamHead = Numeric.decodeQuantity(forward(blockNumberRequest).path(RESULT_FIELD).asText());
+		}
+		return this.upstreamHead.compareTo(minimalHead) >= 0;
+	}
+
+	private static Optional<String> getCacheKey(final JsonNode request) {
+		final String method = request.path(METHOD_FIELD).asText();
+		final JsonNode params = request.path(PARAMS_FIELD);
+		final Integer blockParameterIndex = BLOCK_PARAMETER_INDEXES.get(method);
+		if (IMMUTABLE_METHODS.contains(method)
+			|| blockParameterIndex != null && isPinnedBlock(params.path(blockParameterIndex))) {
+			return Optional.of(method + params);
+		}
+		return Optional.empty();
+	}
+
+	private static boolean isPinnedBlock(final JsonNode blockParameter) {
+		// A block number (but not a tag such as "latest"), or an EIP-1898 block parameter.
+		return blockParameter.isTextual() && blockParameter.asText().startsWith(HEX_PREFIX)
+			|| blockParameter.hasNonNull(BLOCK_HASH_FIELD)
+			|| blockParameter.path(BLOCK_NUMBER_FIELD).asText().startsWith(HEX_PREFIX);
+	}
+
+	private static Optional<BigInteger> getPinnedBlockNumber(final JsonNode request) {
+		final Integer blockParameterIndex = BLOCK_PARAMETER_INDEXES.get(request.path(METHOD_FIELD).asText());
+		if (blockParameterIndex == null) {
+			return Optional.empty();
+		}
+		final JsonNode blockParameter = request.path(PARAMS_FIELD).path(blockParameterIndex);
+		String blockNumber = blockParameter.path(BLOCK_NUMBER_FIELD).asText();
+		if (blockParameter.isTextual()) {
+			blockNumber = blockParameter.asText();
+		}
+		if (!blockNumber.startsWith(HEX_PREFIX)) {
+			return Optional.empty();
+		}
+		return Optional.of(Numeric.decodeQuantity(blockNumber));
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.fork;
+
+import com.github.maximevw.moka.GanacheContainer;
+import org.testcontainers.containers.Network;
+
+/**
+ * The source a Ganache container forks from: either a remote node configured by the fork options (URL, network and
+ * block number), or another Ganache container (see {@link GanacheContainer#withForkFrom(GanacheContainer)}). Both
+ * kinds of source cannot be combined.
+ */
+public class ForkSource {
+
+	private GanacheContainer<?> baseContainer;
+	private boolean forkedFromContainer;
+	private boolean optionsConfigured;
+
+	/**
+	 * Records that the fork URL, network or block number is configured.
+	 *
+	 * @throws IllegalStateException when the container forks from another container.
+	 */
+	public void configureOptions() {
+		if (this.forkedFromContainer) {
+			throw new IllegalStateException("This container forks from another container: its fork URL, network and "
+				+ "block number cannot be configured.");
+		}
+		this.optionsConfigured = true;
+	}
+
+	/**
+	 * Records the container to fork from and gets its Docker network (see
+	 * {@link ContainerForks#shareNetwork(GanacheContainer)}), to which the forking container must be attached.
+	 *
+	 * @param baseContainer The container to fork from.
+	 * @return The network of the base container.
+	 * @throws IllegalStateException when a fork source is already configured.
+	 */
+	public Network forkFrom(final GanacheContainer<?> baseContainer) {
+		if (this.optionsConfigured || this.forkedFromContainer) {
+			throw new IllegalStateException("A fork source is already configured for this container.");
+		}
+		final Network network = ContainerForks.shareNetwork(baseContainer);
+		this.baseContainer = baseContainer;
+		this.forkedFromContainer = true;
+		return network;
+	}
+
+	/**
+	 * Pins the fork to the latest block of the base container (see
+	 * {@link ContainerForks#getPinnedForkUrl(GanacheContainer)}). The fork block is pinned once: a recycled container
+	 * keeps forking from the same block, so the next calls return {@code null}.
+	 *
+	 * @return The pinned fork URL, or {@code null} if the container does not fork from another container or the fork
+	 * 		   is already pinned.
+	 * @throws IllegalStateException when the base container is not started.
+	 */
+	public String pinForkUrl() {
+		if (this.baseContainer == null) {
+			return null;
+		}
+		final String forkUrl = ContainerForks.getPinnedForkUrl(this.baseContainer);
+		this.baseContainer = null;
+		return forkUrl;
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.fork;
+
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.entities.WarmUpReport;
+import com.github.maximevw.moka.rpc.GanacheJsonRpc;
+import com.github.maximevw.moka.rpc.GanacheResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Warm-up of a forked chain: Ganache fetches the state of the forked chain lazily, one account or storage slot at a
+ * time, which makes the first tests slow. The warm-up prefetches the code, the balance and the given storage slots of
+ * the accounts used by the tests, with several concurrent JSON-RPC batches, so that Ganache fetches them from its
+ * upstream in parallel before the tests begin.
+ * <p>
+ *     The state is read at the latest block, which is the fork block as long as no block has been mined locally (see
+ *     {@link GanacheContainer#withForkBlockNumber(org.web3j.protocol.core.DefaultBlockParameter)}). When the forked
+ *     container goes through a {@link ForkCachingProxy}, the report tells how many of the upstream requests were
+ *     served from the cache of the proxy.
+ * </p>
+ */
+@Slf4j(topic = "GanacheContainer")
+public class ForkWarmUp {
+
+	/**
+	 * The default number of JSON-RPC batches sent concurrently.
+	 */
+	public static final int DEFAULT_PARALLELISM = 8;
+
+	private static final String LATEST = DefaultBlockParameterName.LATEST.getValue();
+
+	private final GanacheContainer<?> ganacheContainer;
+	private final ForkCachingProxy cachingProxy;
+	private final int parallelism;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param ganacheContainer The forked Ganache container.
+	 */
+	public ForkWarmUp(final GanacheContainer<?> ganacheContainer) {
+		this(ganacheContainer, null, DEFAULT_PARALLELISM);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param ganacheContainer The forked Ganache container.
+	 * @param cachingProxy	   The caching proxy used as fork URL by the container (may be {@code null}).
+	 * @param parallelism	   The number of JSON-RPC batches sent concurrently.
+	 * @throws IllegalArgumentException when the parallelism is not strictly positive.
+	 */
+	public ForkWarmUp(final GanacheContainer<?> ganacheContainer, final ForkCachingProxy cachingProxy,
+					  final int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("The parallelism of the warm-up must be strictly positive.");
+		}
+		this.ganacheContainer = ganacheContainer;
+		this.cachingProxy = cachingProxy;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Prefetches the code and the balance of the given accounts.
+	 *
+	 * @param addresses The addresses of the accounts.
+	 * @return The report of the warm-up.
+	 * @throws IllegalStateException when Ganache fails to return the state of an account.
+	 */
+	public WarmUpReport warmUp(final Collection<String> addresses) {
+		final Map<String, Collection<BigInteger>> storageSlots = new LinkedHashMap<>();
+		addresses.forEach(address -> storageSlots.put(address, Collections.emptyList()));
+		return warmUp(storageSlots);
+	}
+
+	/**
+	 * Prefetches the code, the balance and the given storage slots of several accounts.
+	 *
+	 * @param storageSlots The storage slots to prefetch, by account address (the collections may be empty).
+	 * @return The report of the warm-up.
+	 * @throws IllegalStateException when Ganache fails to return the state of an account.
+	 */
+	public WarmUpReport warmUp(final Map<String, ? extends Collection<BigInteger>> storageSlots) {
+		final GanacheJsonRpc ganacheJsonRpc = this.ganacheContainer.getGanacheJsonRpc();
+		final List<Request<?, GanacheResponse>> requests = new ArrayList<>();
+		storageSlots.forEach((address, slots) -> {
+			requests.add(ganacheJsonRpc.request("eth_getCode", address, LATEST));
+			requests.add(ganacheJsonRpc.request("eth_getBalance", address, LATEST));
+			slots.forEach(slot -> requests.add(ganacheJsonRpc.request("eth_getStorageAt", address,
+				Numeric.encodeQuantity(slot), LATEST)));
+		});
+		final long initialCacheHits = getCacheHits();
+		final long initialUpstreamRequests = getUpstreamRequests();
+		final long startTime = System.nanoTime();
+		sendConcurrently(ganacheJsonRpc, requests);
+		final WarmUpReport report = WarmUpReport.builder()
+			.duration(Duration.ofNanos(System.nanoTime() - startTime))
+			.accounts(storageSlots.size())
+			.storageSlots(requests.size() - 2 * storageSlots.size())
+			.requests(requests.size())
+			.cacheHits(getCacheHits() - initialCacheHits)
+			.upstreamRequests(getUpstreamRequests() - initialUpstreamRequests)
+			.build();
+		log.info("Fork warmed up in {} ms: {} requests, {} served from the fork cache, {} sent upstream",
+			report.getDuration().toMillis(), report.getRequests(), report.getCacheHits(), report.getUpstreamRequests());
+		return report;
+	}
+
+	private void sendConcurrently(final GanacheJsonRpc ganacheJsonRpc,
+								  final List<Request<?, GanacheResponse>> requests) {
+		final ExecutorService executor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+			final Thread thread = new Thread(runnable, "ganache-fork-warm-up");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			final int batchSize = Math.max(1, (requests.size() + this.parallelism - 1) / this.parallelism);
+			final List<CompletableFuture<?>> batches = new ArrayList<>();
+			for (int from = 0; from < requests.size(); from += batchSize) {
+				final List<Request<?, GanacheResponse>> batch =
+					requests.subList(from, Math.min(from + batchSize, requests.size()));
+				batches.add(CompletableFuture.runAsync(() -> ganacheJsonRpc.sendBatch(batch), executor));
+			}
+			CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).join();
+		} catch (final CompletionException ex) {
+			throw new IllegalStateException("Unable to warm up the forked chain.", ex.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private long getCacheHits() {
+		if (this.cachingProxy == null) {
+			return 0;
+		}
+		return this.cachingProxy.getCacheHits();
+	}
+
+	private long getUpstreamRequests() {
+		if (this.cachingProxy == null) {
+			return 0;
+		}
+		return this.cachingProxy.getCacheMisses() + this.cachingProxy.getPassedThroughRequests();
+	}
+
+}
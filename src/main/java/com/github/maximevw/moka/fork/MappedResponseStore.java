@@ -0,0 +1,151 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.fork;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only store of JSON-RPC results, persisted in a memory-mapped file. Each record is made of a header (the
+ * lengths of the key and of the value, and the CRC-32 checksum of the key and the value) followed by the UTF-8 key and
+ * the value. The file is zero-padded up to the mapped size, and grows by doubling its size when a record does not fit
+ * anymore.
+ * <p>
+ *     The records are not forced to the disk before the store is closed, and the operating system may write the
+ *     modified pages in any order. So when the JVM or the host crashes, the last records may be lost or partially
+ *     written: when the store is opened again, the records are loaded up to the first one whose checksum does not
+ *     match, and the following ones are overwritten.
+ * </p>
+ */
+final class MappedResponseStore implements Closeable {
+
+	private static final int INITIAL_SIZE_IN_BYTES = 1 << 24;
+	private static final int CHECKSUM_OFFSET = 2 * Integer.BYTES;
+	private static final int RECORD_HEADER_SIZE = CHECKSUM_OFFSET + Integer.BYTES;
+
+	private final FileChannel channel;
+	private final Map<String, Integer> recordOffsets = new HashMap<>();
+	private MappedByteBuffer buffer;
+	private int writePosition;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file The path of the store file. It is created if it does not exist yet.
+	 * @throws IOException when the file cannot be opened or mapped in memory.
+	 */
+	MappedResponseStore(final Path file) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+			StandardOpenOption.WRITE);
+		map(Math.max(this.channel.size(), INITIAL_SIZE_IN_BYTES));
+		loadIndex();
+	}
+
+	/**
+	 * Gets a stored value.
+	 *
+	 * @param key The key of the value.
+	 * @return The value, or an empty {@link Optional} if the key is not stored.
+	 */
+	synchronized Optional<byte[]> get(final String key) {
+		final Integer offset = this.recordOffsets.get(key);
+		if (offset == null) {
+			return Optional.empty();
+		}
+		final int keyLength = this.buffer.getInt(offset);
+		final byte[] value = new byte[this.buffer.getInt(offset + Integer.BYTES)];
+		this.buffer.duplicate().position(offset + RECORD_HEADER_SIZE + keyLength).get(value);
+		return Optional.of(value);
+	}
+
+	/**
+	 * Appends a value to the store, unless its key is already stored (the stored values are immutable).
+	 *
+	 * @param key	The key of the value.
+	 * @param value The value.
+	 * @throws IOException when the file cannot be extended.
+	 */
+	synchronized void put(final String key, final byte[] value) throws IOException {
+		if (this.recordOffsets.containsKey(key)) {
+			return;
+		}
+		final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		final long recordEnd = (long) this.writePosition + RECORD_HEADER_SIZE + keyBytes.length + value.length;
+		if (recordEnd > this.buffer.capacity()) {
+			if (recordEnd > Integer.MAX_VALUE) {
+				throw new IOException("The response store is full.");
+			}
+			map(Math.min(Math.max(2L * this.buffer.capacity(), recordEnd), Integer.MAX_VALUE));
+		}
+		final ByteBuffer record = this.buffer.duplicate();
+		record.position(this.writePosition);
+		record.putInt(keyBytes.length).putInt(value.length).putInt(checksum(keyBytes, value)).put(keyBytes).put(value);
+		this.recordOffsets.put(key, this.writePosition);
+		this.writePosition = (int) recordEnd;
+	}
+
+	/**
+	 * Gets the number of stored values.
+	 *
+	 * @return The number of records in the store.
+	 */
+	synchronized int size() {
+		return this.recordOffsets.size();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		this.buffer.force();
+		this.channel.close();
+	}
+
+	private void map(final long sizeInBytes) throws IOException {
+		this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, sizeInBytes);
+	}
+
+	private void loadIndex() {
+		int position = 0;
+		while (position + RECORD_HEADER_SIZE <= this.buffer.capacity()) {
+			final int keyLength = this.buffer.getInt(position);
+			final int valueLength = this.buffer.getInt(position + Integer.BYTES);
+			final long recordEnd = (long) position + RECORD_HEADER_SIZE + keyLength + valueLength;
+			if (keyLength <= 0 || valueLength < 0 || recordEnd > this.buffer.capacity()) {
+				break;
+			}
+			final byte[] keyBytes = new byte[keyLength];
+			final byte[] value = new byte[valueLength];
+			this.buffer.duplicate().position(position + RECORD_HEADER_SIZE).get(keyBytes).get(value);
+			if (this.buffer.getInt(position + CHECKSUM_OFFSET) != checksum(keyBytes, value)) {
+				// Record partially written before a crash: the records are only loaded up to this one.
+				break;
+			}
+			this.recordOffsets.put(new String(keyBytes, StandardCharsets.UTF_8), position);
+			position = (int) recordEnd;
+		}
+		this.writePosition = position;
+	}
+
+	private static int checksum(final byte[] keyBytes, final byte[] value) {
+		final CRC32 crc = new CRC32();
+		crc.update(keyBytes);
+		crc.update(value);
+		return (int) crc.getValue();
+	}
+
+}
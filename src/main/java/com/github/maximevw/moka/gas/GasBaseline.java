@@ -0,0 +1,146 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.gas;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.maximevw.moka.asserts.GasAssertions;
+import com.github.maximevw.moka.enums.BaselineMode;
+import lombok.Getter;
+import org.web3j.protocol.ObjectMapperFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * A baseline of the gas used by labelled operations (a "gas snapshot"), persisted in a JSON file mapping each label
+ * to its gas, for example:
+ * <pre>
+ * {
+ *   "token.transfer": 51234,
+ *   "vault.deposit": 98765
+ * }
+ * </pre>
+ * <p>
+ *     The gas measured by the tests are compared to the baseline with
+ *     {@link GasAssertions#assertGasWithinBaseline(GasBaseline, String, long)}. The measures of the new labels, and
+ *     of all the labels in {@link BaselineMode#UPDATE} mode, are written into the file by {@link #save()}, typically
+ *     called once all the tests are executed (e.g. in a method annotated with {@code @AfterAll}).
+ * </p>
+ */
+public final class GasBaseline {
+
+	private static final double PERCENT = 100d;
+
+	private final Path file;
+	private final Map<String, Long> baselineGas;
+	private final Map<String, Long> measuredGas = new TreeMap<>();
+
+	/**
+	 * The tolerated excess of gas, in percent of the baseline.
+	 */
+	@Getter
+	private final double tolerancePercent;
+
+	/**
+	 * The behaviour when a measured gas exceeds the baseline.
+	 */
+	@Getter
+	private final BaselineMode mode;
+
+	private GasBaseline(final Path file, final Map<String, Long> baselineGas, final double tolerancePercent,
+						final BaselineMode mode) {
+		this.file = file;
+		this.baselineGas = baselineGas;
+		this.tolerancePercent = tolerancePercent;
+		this.mode = mode;
+	}
+
+	/**
+	 * Loads a gas baseline from a JSON file.
+	 *
+	 * @param file			   The path of the JSON file. If it does not exist yet, the baseline is empty and the file
+	 *                         is created by {@link #save()}.
+	 * @param tolerancePercent The tolerated excess of gas, in percent of the baseline.
+	 * @param mode			   The behaviour when a measured gas exceeds the baseline.
+	 * @return The loaded baseline.
+	 * @throws IllegalArgumentException when the tolerance is negative or when the file cannot be read or parsed.
+	 */
+	public static GasBaseline load(final Path file, final double tolerancePercent, final BaselineMode mode) {
+		if (tolerancePercent < 0) {
+			throw new IllegalArgumentException("The gas tolerance cannot be negative.");
+		}
+		final Map<String, Long> baselineGas = new TreeMap<>();
+		if (Files.exists(file)) {
+			try {
+				baselineGas.putAll(ObjectMapperFactory.getObjectMapper().readValue(file.toFile(),
+					new TypeReference<Map<String, Long>>() { }));
+			} catch (final IOException ex) {
+				throw new IllegalArgumentException("Unable to read the gas baseline file: " + file, ex);
+			}
+		}
+		return new GasBaseline(file, baselineGas, tolerancePercent, mode);
+	}
+
+	/**
+	 * Gets the baseline gas of an operation.
+	 *
+	 * @param label The label of the operation.
+	 * @return The baseline gas, or an empty {@link Optional} if the operation has no baseline yet.
+	 */
+	public synchronized Optional<Long> getBaselineGas(final String label) {
+		return Optional.ofNullable(this.baselineGas.get(label));
+	}
+
+	/**
+	 * Gets the maximal gas tolerated for an operation, given the baseline and the tolerance.
+	 *
+	 * @param label The label of the operation.
+	 * @return The maximal tolerated gas, or an empty {@link Optional} if the operation has no baseline yet.
+	 */
+	public Optional<Long> getMaximalGas(final String label) {
+		return getBaselineGas(label).map(gas -> (long) Math.floor(gas * (1 + this.tolerancePercent / PERCENT)));
+	}
+
+	/**
+	 * Records the gas measured for an operation.
+	 *
+	 * @param label	  The label of the operation.
+	 * @param gasUsed The measured gas.
+	 */
+	public synchronized void record(final String label, final long gasUsed) {
+		this.measuredGas.put(label, gasUsed);
+	}
+
+	/**
+	 * Writes the baseline into its file: the gas of the new labels is added and, in {@link BaselineMode#UPDATE} mode,
+	 * the gas of the existing labels is replaced by the last measures.
+	 *
+	 * @throws IllegalStateException when the file cannot be written.
+	 */
+	public synchronized void save() {
+		this.measuredGas.forEach((label, gasUsed) -> {
+			if (this.mode == BaselineMode.UPDATE) {
+				this.baselineGas.put(label, gasUsed);
+			} else {
+				this.baselineGas.putIfAbsent(label, gasUsed);
+			}
+		});
+		try {
+			ObjectMapperFactory.getObjectMapper().writerWithDefaultPrettyPrinter()
+				.writeValue(this.file.toFile(), this.baselineGas);
+		} catch (final IOException ex) {
+			throw new IllegalStateException("Unable to write the gas baseline file: " + this.file, ex);
+		}
+	}
+
+}
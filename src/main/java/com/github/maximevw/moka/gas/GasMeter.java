@@ -0,0 +1,83 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.gas;
+
+import com.github.maximevw.moka.GanacheContainer;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthBlock;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A meter of the gas used by all the transactions mined in a Ganache container since a starting block, for example
+ * to measure the total gas used by a test.
+ * <p>
+ *     The gas used is the sum of the {@code gasUsed} of the blocks mined since the start of the meter, fetched in
+ *     JSON-RPC batches. It includes all the transactions of these blocks, even the ones sent by concurrent tests on
+ *     the same container.
+ * </p>
+ */
+public class GasMeter {
+
+	private final GanacheContainer<?> ganacheContainer;
+	private BigInteger startBlock;
+
+	/**
+	 * Constructor starting the meter at the last block of the container.
+	 *
+	 * @param ganacheContainer The Ganache container.
+	 * @throws IllegalStateException when the last block cannot be retrieved.
+	 */
+	public GasMeter(final GanacheContainer<?> ganacheContainer) {
+		this.ganacheContainer = ganacheContainer;
+		restart();
+	}
+
+	/**
+	 * Restarts the meter at the last block of the container.
+	 *
+	 * @throws IllegalStateException when the last block cannot be retrieved.
+	 */
+	public final synchronized void restart() {
+		this.startBlock = this.ganacheContainer.getGanacheJsonRpc().getBlockNumber();
+	}
+
+	/**
+	 * Gets the gas used by the blocks mined since the start of the meter.
+	 *
+	 * @return The gas used since the start of the meter.
+	 * @throws IllegalStateException when the blocks cannot be retrieved or no longer exist.
+	 */
+	public synchronized long getGasUsed() {
+		final Web3j web3j = this.ganacheContainer.getWeb3j();
+		final BigInteger lastBlock = this.ganacheContainer.getGanacheJsonRpc().getBlockNumber();
+		final List<Request<?, EthBlock>> requests = new ArrayList<>();
+		for (BigInteger block = this.startBlock.add(BigInteger.ONE); block.compareTo(lastBlock) <= 0;
+			 block = block.add(BigInteger.ONE)) {
+			requests.add(web3j.ethGetBlockByNumber(DefaultBlockParameter.valueOf(block), false));
+		}
+		return this.ganacheContainer.getGanacheJsonRpc().sendBatch(requests).stream()
+			.mapToLong(response -> getBlockGasUsed((EthBlock) response))
+			.sum();
+	}
+
+	private static long getBlockGasUsed(final EthBlock response) {
+		final EthBlock.Block block = response.getBlock();
+		if (block == null) {
+			throw new IllegalStateException("A block mined since the start of the gas meter no longer exists (the "
+				+ "chain may have been reverted).");
+		}
+		return block.getGasUsed().longValueExact();
+	}
+
+}
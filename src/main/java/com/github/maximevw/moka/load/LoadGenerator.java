@@ -0,0 +1,118 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.load;
+
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.entities.LoadReport;
+import com.github.maximevw.moka.entities.TestingAccount;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A generator of transactions load, for example to test the throughput of an application indexing the chain.
+ * <p>
+ *     The transactions are submitted by a pool of threads, in turn from each of the sender testing accounts, at the
+ *     rate given by a {@link RateProfile}. They are sent with the transaction manager of each sender (see
+ *     {@link TestingAccount#transactionManager()}), which signs them and tracks the nonces locally, so the
+ *     submissions do not wait for the previous transactions to be mined. The receipts of the submitted transactions
+ *     are awaited with {@link GanacheContainer#awaitReceipts(Collection)} to measure their latency.
+ * </p>
+ * <p>
+ *     Example:
+ *     <pre>
+ *       final LoadReport report = LoadGenerator.builder()
+ *           .ganacheContainer(ganacheContainer)
+ *           .senders(new ArrayList&lt;&gt;(ganacheContainer.getTestingAccounts().values()))
+ *           .rateProfile(RateProfiles.ramp(10, 200, Duration.ofSeconds(30)))
+ *           .duration(Duration.ofMinutes(1))
+ *           .build()
+ *           .run();
+ *     </pre>
+ * </p>
+ */
+@Getter
+@Builder
+public class LoadGenerator {
+
+	/**
+	 * The Ganache container receiving the transactions.
+	 */
+	private final GanacheContainer<?> ganacheContainer;
+
+	/**
+	 * The testing accounts sending the transactions. The accounts without known private key must be unlocked.
+	 */
+	private final List<TestingAccount> senders;
+
+	/**
+	 * The rate profile of the submissions.
+	 */
+	private final RateProfile rateProfile;
+
+	/**
+	 * The duration of the submissions.
+	 */
+	private final Duration duration;
+
+	/**
+	 * The address receiving the transactions. If not specified, each sender sends the transactions to itself.
+	 */
+	private final String recipientAddress;
+
+	/**
+	 * The value in WEI transferred by each transaction. By default: 0.
+	 */
+	private final BigInteger valueInWei;
+
+	/**
+	 * The data of each transaction (for example an encoded function call when the recipient is a contract).
+	 */
+	private final String data;
+
+	/**
+	 * The gas limit of each transaction. By default: 21000, the gas used by a simple transfer.
+	 */
+	private final BigInteger gasLimit;
+
+	/**
+	 * The number of threads submitting the transactions. By default: 16.
+	 */
+	private final Integer senderThreads;
+
+	/**
+	 * The maximal time to wait for the receipts of the submitted transactions once the submissions are over. By
+	 * default: 30 seconds.
+	 */
+	private final Duration confirmationTimeout;
+
+	/**
+	 * Runs the load and waits for the confirmations of the submitted transactions.
+	 *
+	 * @return The report of the load.
+	 * @throws IllegalArgumentException when the container, the senders, the rate profile or the duration are not
+	 * 									specified.
+	 * @throws IllegalStateException when the initial state of the senders cannot be retrieved.
+	 */
+	public LoadReport run() {
+		if (this.ganacheContainer == null || this.rateProfile == null) {
+			throw new IllegalArgumentException("The Ganache container and the rate profile must be specified.");
+		} else if (this.senders == null || this.senders.isEmpty()) {
+			throw new IllegalArgumentException("At least one sender must be specified.");
+		} else if (this.duration == null || this.duration.isNegative() || this.duration.isZero()) {
+			throw new IllegalArgumentException("The duration of the load must be strictly positive.");
+		}
+		return new LoadRun(this).execute();
+	}
+
+}
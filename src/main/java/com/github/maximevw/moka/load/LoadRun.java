@@ -0,0 +1,230 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.load;
+
+import com.github.maximevw.moka.entities.LoadReport;
+import com.github.maximevw.moka.entities.TestingAccount;
+import com.github.maximevw.moka.rpc.GanacheJsonRpc;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ObjectUtils;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * A single execution of a {@link LoadGenerator}, holding the state of the load while it is running.
+ * <p>
+ *     The submissions are paced by the calling thread and executed by a fixed pool of platform threads (virtual
+ *     threads are not available on the targeted Java version): each submission only blocks its thread during the
+ *     round trip of {@code eth_sendRawTransaction}. The receipts are then awaited asynchronously.
+ * </p>
+ */
+@Slf4j(topic = "GanacheContainer")
+final class LoadRun {
+
+	private static final BigInteger DEFAULT_GAS_LIMIT = BigInteger.valueOf(21_000);
+	private static final int DEFAULT_SENDER_THREADS = 16;
+	private static final Duration DEFAULT_CONFIRMATION_TIMEOUT = Duration.ofSeconds(30);
+	private static final long PACING_TICK_IN_MILLIS = 10;
+	private static final double NANOS_PER_SECOND = 1_000_000_000d;
+	private static final double MEDIAN = 0.5;
+	private static final double PERCENTILE_90 = 0.9;
+	private static final double PERCENTILE_99 = 0.99;
+	private static final String REVERTED_ERROR = "Transaction reverted";
+	private static final String UNCONFIRMED_ERROR = "Transaction not mined before the confirmation timeout";
+
+	private final LoadGenerator generator;
+	private final Web3j web3j;
+	private final GanacheJsonRpc ganacheJsonRpc;
+	private final Duration confirmationTimeout;
+	private final Map<String, CompletableFuture<TransactionReceipt>> pendingTransactions = new ConcurrentHashMap<>();
+	private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+	private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+	private final AtomicLong submittedTransactions = new AtomicLong();
+	private final AtomicInteger nextSender = new AtomicInteger();
+	private BigInteger gasPrice;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param generator The configuration of the load.
+	 */
+	LoadRun(final LoadGenerator generator) {
+		this.generator = generator;
+		this.web3j = generator.getGanacheContainer().getWeb3j();
+		this.ganacheJsonRpc = generator.getGanacheContainer().getGanacheJsonRpc();
+		this.confirmationTimeout = ObjectUtils.defaultIfNull(generator.getConfirmationTimeout(),
+			DEFAULT_CONFIRMATION_TIMEOUT);
+	}
+
+	/**
+	 * Executes the load and waits for the confirmations of the submitted transactions.
+	 *
+	 * @return The report of the load.
+	 * @throws IllegalStateException when the initial state of the senders cannot be retrieved.
+	 */
+	LoadReport execute() {
+		initialize();
+		final ExecutorService senderPool = Executors.newFixedThreadPool(
+			ObjectUtils.defaultIfNull(this.generator.getSenderThreads(), DEFAULT_SENDER_THREADS), runnable -> {
+				final Thread thread = new Thread(runnable, "moka-load-sender");
+				thread.setDaemon(true);
+				return thread;
+			});
+		final long startTime = System.nanoTime();
+		try {
+			pace(senderPool, startTime);
+			senderPool.shutdown();
+			final long deadline = System.nanoTime() + this.confirmationTimeout.toNanos();
+			senderPool.awaitTermination(this.confirmationTimeout.toNanos(), TimeUnit.NANOSECONDS);
+			awaitConfirmations(deadline);
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} finally {
+			senderPool.shutdownNow();
+		}
+		final Duration loadDuration = Duration.ofNanos(System.nanoTime() - startTime);
+		this.pendingTransactions.keySet().forEach(hash -> {
+			final CompletableFuture<TransactionReceipt> receipt = this.pendingTransactions.remove(hash);
+			if (receipt != null) {
+				receipt.cancel(false);
+				recordError(UNCONFIRMED_ERROR);
+			}
+		});
+		return buildReport(loadDuration);
+	}
+
+	private void initialize() {
+		try {
+			this.gasPrice = this.web3j.ethGasPrice().send().getGasPrice();
+		} catch (final IOException ex) {
+			throw new IllegalStateException("Unable to get the gas price.", ex);
+		}
+		// Create the transaction managers of the senders before the load starts.
+		this.generator.getSenders().forEach(TestingAccount::transactionManager);
+	}
+
+	private void pace(final ExecutorService senderPool, final long startTime) throws InterruptedException {
+		final long durationInNanos = this.generator.getDuration().toNanos();
+		final RateProfile rateProfile = this.generator.getRateProfile();
+		double dueTransactions = 0;
+		long dispatchedTransactions = 0;
+		long lastTick = startTime;
+		long now = startTime;
+		while (now - startTime < durationInNanos) {
+			final double rate = rateProfile.transactionsPerSecondAt(Duration.ofNanos(now - startTime));
+			dueTransactions += rate * (now - lastTick) / NANOS_PER_SECOND;
+			lastTick = now;
+			while (dispatchedTransactions < (long) dueTransactions) {
+				senderPool.execute(this::submitTransaction);
+				dispatchedTransactions++;
+			}
+			Thread.sleep(PACING_TICK_IN_MILLIS);
+			now = System.nanoTime();
+		}
+	}
+
+	private void awaitConfirmations(final long deadline) throws InterruptedException {
+		while (!this.pendingTransactions.isEmpty() && System.nanoTime() < deadline) {
+			Thread.sleep(PACING_TICK_IN_MILLIS);
+		}
+	}
+
+	private void submitTransaction() {
+		final List<TestingAccount> senders = this.generator.getSenders();
+		final TestingAccount sender = senders.get(Math.floorMod(this.nextSender.getAndIncrement(), senders.size()));
+		this.submittedTransactions.incrementAndGet();
+		try {
+			final long submissionTime = System.nanoTime();
+			final EthSendTransaction response = sender.transactionManager().sendTransaction(this.gasPrice,
+				ObjectUtils.defaultIfNull(this.generator.getGasLimit(), DEFAULT_GAS_LIMIT),
+				ObjectUtils.defaultIfNull(this.generator.getRecipientAddress(), sender.getAddress()),
+				this.generator.getData(),
+				ObjectUtils.defaultIfNull(this.generator.getValueInWei(), BigInteger.ZERO));
+			if (response.hasError()) {
+				recordError(response.getError().getMessage());
+			} else {
+				awaitConfirmation(response.getTransactionHash(), submissionTime);
+			}
+		} catch (final IOException | RuntimeException ex) {
+			recordError(ex.getClass().getSimpleName());
+		}
+	}
+
+	private void awaitConfirmation(final String transactionHash, final long submissionTime) {
+		final CompletableFuture<TransactionReceipt> receipt = this.ganacheJsonRpc
+			.awaitReceipts(Collections.singletonList(transactionHash)).get(transactionHash);
+		this.pendingTransactions.put(transactionHash, receipt);
+		receipt.whenComplete((transactionReceipt, failure) -> {
+			// Ignore the transactions already counted as unconfirmed at the end of the load.
+			if (this.pendingTransactions.remove(transactionHash) == null) {
+				return;
+			}
+			if (failure != null) {
+				recordError(failure.getClass().getSimpleName());
+			} else if (transactionReceipt.isStatusOK()) {
+				this.latencies.add(System.nanoTime() - submissionTime);
+			} else {
+				recordError(REVERTED_ERROR);
+			}
+		});
+	}
+
+	private void recordError(final String cause) {
+		this.errors.computeIfAbsent(String.valueOf(cause), key -> new LongAdder()).increment();
+	}
+
+	private LoadReport buildReport(final Duration loadDuration) {
+		final long[] sortedLatencies = this.latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+		final LoadReport report = LoadReport.builder()
+			.duration(loadDuration)
+			.submittedTransactions(this.submittedTransactions.get())
+			.confirmedTransactions(sortedLatencies.length)
+			.confirmedTransactionsPerSecond(sortedLatencies.length * NANOS_PER_SECOND / loadDuration.toNanos())
+			.latencyP50(percentile(sortedLatencies, MEDIAN))
+			.latencyP90(percentile(sortedLatencies, PERCENTILE_90))
+			.latencyP99(percentile(sortedLatencies, PERCENTILE_99))
+			.latencyMax(percentile(sortedLatencies, 1))
+			.errors(this.errors.entrySet().stream()
+				.collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum())))
+			.build();
+		log.info("Load report: {} transactions submitted, {} confirmed ({} TPS), {} failed, p50 latency: {} ms, p99 "
+				+ "latency: {} ms", report.getSubmittedTransactions(), report.getConfirmedTransactions(),
+			String.format("%.1f", report.getConfirmedTransactionsPerSecond()), report.getFailedTransactions(),
+			report.getLatencyP50().toMillis(), report.getLatencyP99().toMillis());
+		return report;
+	}
+
+	private static Duration percentile(final long[] sortedValues, final double percentile) {
+		if (sortedValues.length == 0) {
+			return Duration.ZERO;
+		}
+		final int index = Math.max(0, (int) Math.ceil(percentile * sortedValues.length) - 1);
+		return Duration.ofNanos(sortedValues[index]);
+	}
+
+}
@@ -0,0 +1,29 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.load;
+
+import java.time.Duration;
+
+/**
+ * The rate at which a {@link LoadGenerator} submits transactions over time.
+ *
+ * @see RateProfiles
+ */
+@FunctionalInterface
+public interface RateProfile {
+
+	/**
+	 * Gets the target rate of submitted transactions at a given time of the load.
+	 *
+	 * @param elapsed The time elapsed since the beginning of the load.
+	 * @return The target number of transactions submitted per second.
+	 */
+	double transactionsPerSecondAt(Duration elapsed);
+
+}
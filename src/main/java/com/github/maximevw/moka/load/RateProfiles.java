@@ -0,0 +1,96 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.load;
+
+import java.time.Duration;
+
+/**
+ * Provides the usual rate profiles for {@link LoadGenerator} using {@link RateProfile} interface.
+ */
+public final class RateProfiles {
+
+	private RateProfiles() {
+		// Private constructor hiding the public default one.
+	}
+
+	/**
+	 * A constant rate.
+	 *
+	 * @param transactionsPerSecond The number of transactions submitted per second.
+	 * @return The rate profile.
+	 * @throws IllegalArgumentException when the rate is negative.
+	 */
+	public static RateProfile constant(final double transactionsPerSecond) {
+		checkRate(transactionsPerSecond);
+		return elapsed -> transactionsPerSecond;
+	}
+
+	/**
+	 * A rate increasing (or decreasing) linearly from an initial rate to a final rate, then remaining constant once
+	 * the final rate is reached.
+	 *
+	 * @param initialTransactionsPerSecond The number of transactions submitted per second at the beginning.
+	 * @param finalTransactionsPerSecond   The number of transactions submitted per second at the end of the ramp.
+	 * @param rampDuration				   The duration of the ramp.
+	 * @return The rate profile.
+	 * @throws IllegalArgumentException when one of the rates is negative or the duration is not strictly positive.
+	 */
+	public static RateProfile ramp(final double initialTransactionsPerSecond, final double finalTransactionsPerSecond,
+								   final Duration rampDuration) {
+		checkRate(initialTransactionsPerSecond);
+		checkRate(finalTransactionsPerSecond);
+		checkDuration(rampDuration);
+		return elapsed -> {
+			final double progress = Math.min(1, (double) elapsed.toNanos() / rampDuration.toNanos());
+			final double rateVariation = finalTransactionsPerSecond - initialTransactionsPerSecond;
+			return initialTransactionsPerSecond + rateVariation * progress;
+		};
+	}
+
+	/**
+	 * A base rate periodically interrupted by bursts at a higher rate. Each period starts with a burst.
+	 *
+	 * @param baseTransactionsPerSecond	 The number of transactions submitted per second between the bursts.
+	 * @param burstTransactionsPerSecond The number of transactions submitted per second during the bursts.
+	 * @param period					 The duration between the beginnings of two consecutive bursts.
+	 * @param burstDuration				 The duration of each burst, shorter than the period.
+	 * @return The rate profile.
+	 * @throws IllegalArgumentException when one of the rates is negative, one of the durations is not strictly
+	 * 									positive or the burst duration is not shorter than the period.
+	 */
+	public static RateProfile burst(final double baseTransactionsPerSecond, final double burstTransactionsPerSecond,
+									final Duration period, final Duration burstDuration) {
+		checkRate(baseTransactionsPerSecond);
+		checkRate(burstTransactionsPerSecond);
+		checkDuration(period);
+		checkDuration(burstDuration);
+		if (burstDuration.compareTo(period) >= 0) {
+			throw new IllegalArgumentException("The burst duration must be shorter than the period.");
+		}
+		return elapsed -> {
+			if (elapsed.toNanos() % period.toNanos() < burstDuration.toNanos()) {
+				return burstTransactionsPerSecond;
+			}
+			return baseTransactionsPerSecond;
+		};
+	}
+
+	private static void checkRate(final double transactionsPerSecond) {
+		if (transactionsPerSecond < 0) {
+			throw new IllegalArgumentException("The rate of transactions cannot be negative.");
+		}
+	}
+
+	private static void checkDuration(final Duration duration) {
+		if (duration == null || duration.isNegative() || duration.isZero()) {
+			throw new IllegalArgumentException("The duration must be strictly positive.");
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.monitoring;
+
+import com.github.maximevw.moka.GanacheContainer;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thresholds beyond which a long-lived Ganache container should be recycled (i.e. restarted on its persisted
+ * database) to keep a stable throughput over long test runs.
+ * <p>
+ *     Each threshold is optional: a {@code null} value means the corresponding criterion is not evaluated.
+ * </p>
+ *
+ * @see GanacheContainer#withMemoryWatchdog(MemoryWatchdog)
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class MemoryWatchdog {
+
+	/**
+	 * The memory usage of the container, in bytes, beyond which the container should be recycled.
+	 */
+	private Long memoryThresholdInBytes;
+
+	/**
+	 * The round-trip time of a basic JSON-RPC request beyond which the container should be recycled.
+	 */
+	private Duration latencyThreshold;
+
+	/**
+	 * Whether the container should be recycled given its current state.
+	 *
+	 * @param memoryUsageInBytes The current memory usage of the container in bytes.
+	 * @param latency			 The current round-trip time of a basic JSON-RPC request.
+	 * @return {@code true} if at least one of the thresholds is exceeded, {@code false} otherwise.
+	 */
+	public boolean shouldRecycle(final long memoryUsageInBytes, final Duration latency) {
+		final boolean memoryExceeded = this.memoryThresholdInBytes != null
+			&& memoryUsageInBytes > this.memoryThresholdInBytes;
+		final boolean latencyDegraded = this.latencyThreshold != null && latency != null
+			&& latency.compareTo(this.latencyThreshold) > 0;
+		return memoryExceeded || latencyDegraded;
+	}
+
+}
@@ -0,0 +1,184 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.monitoring;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.CreateContainerCmd;
+import com.github.dockerjava.api.model.CpuStatsConfig;
+import com.github.dockerjava.api.model.Statistics;
+import com.github.maximevw.moka.entities.ResourceSample;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background sampler periodically reading the Docker statistics (CPU and memory) of a Ganache container, completed by
+ * the Node.js heap usage reported by the garbage collector traces of Ganache when available.
+ */
+@Slf4j(topic = "GanacheContainer")
+public class ResourceSampler {
+
+	private static final double PERCENT = 100.0;
+	private static final long STATS_TIMEOUT_IN_SECONDS = 10;
+	private static final String NODE_EXECUTABLE = "node";
+	private static final String TRACE_GC_OPTION = "--trace-gc";
+
+	/**
+	 * The time series containing the samples taken by this sampler.
+	 */
+	@Getter
+	private final ResourceTimeSeries timeSeries;
+
+	private final Duration interval;
+	private ScheduledExecutorService executor;
+	private volatile Long nodeHeapUsedInBytes;
+	private volatile Long nodeHeapTotalInBytes;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param interval The interval between two samples.
+	 * @param capacity The maximal number of samples kept in the time series.
+	 * @throws IllegalArgumentException when the interval is {@code null} or not strictly positive, or when the
+	 * 									capacity is not strictly positive.
+	 */
+	public ResourceSampler(final Duration interval, final int capacity) {
+		if (interval == null || interval.isNegative() || interval.isZero()) {
+			throw new IllegalArgumentException("The sampling interval must be strictly positive.");
+		}
+		this.interval = interval;
+		this.timeSeries = new ResourceTimeSeries(capacity);
+	}
+
+	/**
+	 * Starts sampling the resources of the given container in background.
+	 *
+	 * @param dockerClient The Docker client.
+	 * @param containerId  The identifier of the sampled container.
+	 */
+	public synchronized void start(final DockerClient dockerClient, final String containerId) {
+		stop();
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "ganache-resource-sampler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor.scheduleWithFixedDelay(() -> sample(dockerClient, containerId), 0, this.interval.toMillis(),
+			TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops sampling. The samples already taken remain available.
+	 */
+	public synchronized void stop() {
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+			this.executor = null;
+		}
+	}
+
+	/**
+	 * Records the Node.js heap usage reported after a garbage collection. It will be attached to the next samples.
+	 *
+	 * @param usedInBytes  The used heap in bytes.
+	 * @param totalInBytes The total heap size in bytes.
+	 */
+	public void recordNodeHeap(final long usedInBytes, final long totalInBytes) {
+		this.nodeHeapUsedInBytes = usedInBytes;
+		this.nodeHeapTotalInBytes = totalInBytes;
+	}
+
+	/**
+	 * Adds the option {@code --trace-gc} to the Node.js command line of the entrypoint of the container to create, so
+	 * that the garbage collector reports the heap usage. Node.js does not allow this option in the environment
+	 * variable {@code NODE_OPTIONS}. If the entrypoint of the image does not start with the Node.js executable, the
+	 * option is not added and the heap usage is not sampled.
+	 *
+	 * @param dockerClient		 The Docker client.
+	 * @param createContainerCmd The command creating the container.
+	 */
+	public static void traceGarbageCollections(final DockerClient dockerClient,
+											   final CreateContainerCmd createContainerCmd) {
+		final String[] entrypoint = dockerClient.inspectImageCmd(createContainerCmd.getImage()).exec().getConfig()
+			.getEntrypoint();
+		if (entrypoint == null || entrypoint.length == 0 || !entrypoint[0].endsWith(NODE_EXECUTABLE)) {
+			log.warn("Unable to trace the garbage collections: the entrypoint of the image {} is not a Node.js "
+				+ "command line.", createContainerCmd.getImage());
+			return;
+		}
+		final List<String> tracedEntrypoint = new ArrayList<>(Arrays.asList(entrypoint));
+		if (!tracedEntrypoint.contains(TRACE_GC_OPTION)) {
+			tracedEntrypoint.add(1, TRACE_GC_OPTION);
+		}
+		createContainerCmd.withEntrypoint(tracedEntrypoint);
+	}
+
+	private void sample(final DockerClient dockerClient, final String containerId) {
+		// A one-shot statistics call takes one or two seconds: its timeout does not depend on the sampling interval.
+		try (ResultCallback.Adapter<Statistics> callback = dockerClient.statsCmd(containerId).withNoStream(true)
+			.exec(new ResultCallback.Adapter<>() {
+				@Override
+				public void onNext(final Statistics statistics) {
+					timeSeries.add(toSample(statistics));
+				}
+			})) {
+			callback.awaitCompletion(STATS_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} catch (final IOException | RuntimeException ex) {
+			log.debug("Unable to sample the container resources: {}", ex.getMessage());
+		}
+	}
+
+	private ResourceSample toSample(final Statistics statistics) {
+		final ResourceSample.ResourceSampleBuilder sample = ResourceSample.builder()
+			.timestamp(Instant.now())
+			.cpuPercent(computeCpuPercent(statistics.getCpuStats(), statistics.getPreCpuStats()))
+			.nodeHeapUsedInBytes(this.nodeHeapUsedInBytes)
+			.nodeHeapTotalInBytes(this.nodeHeapTotalInBytes);
+		if (statistics.getMemoryStats() != null) {
+			sample.memoryUsageInBytes(valueOrZero(statistics.getMemoryStats().getUsage()))
+				.memoryLimitInBytes(valueOrZero(statistics.getMemoryStats().getLimit()));
+		}
+		return sample.build();
+	}
+
+	private static double computeCpuPercent(final CpuStatsConfig cpuStats, final CpuStatsConfig preCpuStats) {
+		if (cpuStats == null || preCpuStats == null || cpuStats.getCpuUsage() == null
+			|| preCpuStats.getCpuUsage() == null) {
+			return 0;
+		}
+		final long cpuDelta = valueOrZero(cpuStats.getCpuUsage().getTotalUsage())
+			- valueOrZero(preCpuStats.getCpuUsage().getTotalUsage());
+		final long systemDelta = valueOrZero(cpuStats.getSystemCpuUsage())
+			- valueOrZero(preCpuStats.getSystemCpuUsage());
+		if (cpuDelta <= 0 || systemDelta <= 0) {
+			return 0;
+		}
+		return (double) cpuDelta / systemDelta * valueOrZero(cpuStats.getOnlineCpus()) * PERCENT;
+	}
+
+	private static long valueOrZero(final Long value) {
+		if (value == null) {
+			return 0;
+		}
+		return value;
+	}
+
+}
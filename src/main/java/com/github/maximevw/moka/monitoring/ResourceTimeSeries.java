@@ -0,0 +1,128 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.monitoring;
+
+import com.github.maximevw.moka.entities.ResourceSample;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * A bounded time series of {@link ResourceSample}s: when the capacity is reached, the oldest samples are discarded.
+ */
+public class ResourceTimeSeries {
+
+	private static final String CSV_HEADER = "timestamp,cpuPercent,memoryUsageInBytes,memoryLimitInBytes,"
+		+ "nodeHeapUsedInBytes,nodeHeapTotalInBytes";
+
+	private final ResourceSample[] samples;
+	private int nextIndex;
+	private int size;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity The maximal number of samples kept in the time series.
+	 * @throws IllegalArgumentException when the specified capacity is not strictly positive.
+	 */
+	public ResourceTimeSeries(final int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("The capacity of the time series must be strictly positive.");
+		}
+		this.samples = new ResourceSample[capacity];
+	}
+
+	/**
+	 * Adds a sample to the time series, discarding the oldest one if the capacity is reached.
+	 *
+	 * @param sample The sample to add.
+	 */
+	public synchronized void add(final ResourceSample sample) {
+		this.samples[this.nextIndex] = sample;
+		this.nextIndex = (this.nextIndex + 1) % this.samples.length;
+		this.size = Math.min(this.size + 1, this.samples.length);
+	}
+
+	/**
+	 * Gets all the samples of the time series, from the oldest to the most recent one.
+	 *
+	 * @return The list of samples.
+	 */
+	public synchronized List<ResourceSample> getSamples() {
+		final List<ResourceSample> result = new ArrayList<>(this.size);
+		final int firstIndex = (this.nextIndex - this.size + this.samples.length) % this.samples.length;
+		for (int i = 0; i < this.size; i++) {
+			result.add(this.samples[(firstIndex + i) % this.samples.length]);
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the samples taken in the given time range (typically the execution of a test), from the oldest to the most
+	 * recent one.
+	 *
+	 * @param from The start of the time range (inclusive).
+	 * @param to   The end of the time range (inclusive).
+	 * @return The list of samples in the time range.
+	 */
+	public List<ResourceSample> getSamplesBetween(final Instant from, final Instant to) {
+		return getSamples().stream()
+			.filter(sample -> !sample.getTimestamp().isBefore(from) && !sample.getTimestamp().isAfter(to))
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Gets the most recent sample.
+	 *
+	 * @return The most recent sample or an empty {@link Optional} if no sample has been taken yet.
+	 */
+	public synchronized Optional<ResourceSample> getLatest() {
+		if (this.size == 0) {
+			return Optional.empty();
+		}
+		return Optional.of(this.samples[(this.nextIndex - 1 + this.samples.length) % this.samples.length]);
+	}
+
+	/**
+	 * Exports the samples of the time series in CSV format.
+	 *
+	 * @return The CSV content, including a header line.
+	 */
+	public String toCsv() {
+		final StringBuilder csv = new StringBuilder(CSV_HEADER).append(System.lineSeparator());
+		getSamples().forEach(sample -> csv.append(sample.getTimestamp()).append(',')
+			.append(sample.getCpuPercent()).append(',')
+			.append(sample.getMemoryUsageInBytes()).append(',')
+			.append(sample.getMemoryLimitInBytes()).append(',')
+			.append(Objects.toString(sample.getNodeHeapUsedInBytes(), StringUtils.EMPTY)).append(',')
+			.append(Objects.toString(sample.getNodeHeapTotalInBytes(), StringUtils.EMPTY))
+			.append(System.lineSeparator()));
+		return csv.toString();
+	}
+
+	/**
+	 * Exports the samples of the time series to a CSV file, for example to attach it to the tests reports.
+	 *
+	 * @param file The path of the file to write.
+	 * @throws IOException when the file cannot be written.
+	 */
+	public void exportCsv(final Path file) throws IOException {
+		Files.writeString(file, toCsv(), StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,225 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.rpc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.http.HttpService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A Web3j HTTP service memoizing, in a {@link ResponseCache}, the results of the JSON-RPC calls whose response never
+ * changes once available:
+ * <ul>
+ *     <li>{@code eth_chainId} and {@code net_version},</li>
+ *     <li>{@code eth_getBlockByHash},</li>
+ *     <li>{@code eth_getTransactionByHash}, once the transaction is mined,</li>
+ *     <li>{@code eth_getTransactionReceipt}, once the transaction is mined,</li>
+ *     <li>{@code eth_call} pinned to a block hash (EIP-1898 block parameter {@code {"blockHash": "0x..."}}).</li>
+ * </ul>
+ * <p>
+ *     The other calls are sent to Ganache as usual. In a JSON-RPC batch, the cacheable calls are served from the cache
+ *     individually and the other calls are sent to Ganache in a single batch. Since a reverted snapshot removes the
+ *     blocks mined after the snapshot, the cache is invalidated by each call to {@code evm_revert}, as well as by the
+ *     container when it is stopped.
+ *     When no cache is provided, the service behaves exactly as {@link HttpService}.
+ * </p>
+ */
+@Slf4j(topic = "GanacheContainer")
+public class CachingHttpService extends HttpService {
+
+	private static final String EVM_REVERT = "evm_revert";
+	private static final String ETH_CALL = "eth_call";
+	private static final String ETH_GET_TRANSACTION_BY_HASH = "eth_getTransactionByHash";
+	private static final Set<String> IMMUTABLE_METHODS = Set.of("eth_chainId", "net_version", "eth_getBlockByHash",
+		"eth_getTransactionReceipt", ETH_GET_TRANSACTION_BY_HASH);
+	private static final Pattern METHOD_PATTERN = Pattern.compile("\"method\"\\s*:\\s*\"([A-Za-z0-9_]+)\"");
+	private static final String METHOD_FIELD = "method";
+	private static final String PARAMS_FIELD = "params";
+	private static final String ID_FIELD = "id";
+	private static final String RESULT_FIELD = "result";
+	private static final String BLOCK_HASH_FIELD = "blockHash";
+
+	private final ResponseCache responseCache;
+	private final ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param url			The URL of the JSON-RPC endpoint of Ganache.
+	 * @param responseCache The cache of the immutable responses (may be {@code null} to disable the caching).
+	 */
+	public CachingHttpService(final String url, final ResponseCache responseCache) {
+		super(url);
+		this.responseCache = responseCache;
+	}
+
+	@Override
+	protected InputStream performIO(final String payload) throws IOException {
+		if (this.responseCache == null) {
+			return super.performIO(payload);
+		}
+		// Only the requests to a potentially cacheable method are parsed: the other requests (for example the batches
+		// of raw transactions) are only scanned to detect the calls to evm_revert.
+		final Set<String> methods = extractMethods(payload);
+		if (methods.contains(EVM_REVERT)) {
+			final InputStream response = super.performIO(payload);
+			log.debug("Invalidating the response cache after a call to {}", EVM_REVERT);
+			this.responseCache.invalidate();
+			return response;
+		}
+		if (!methods.contains(ETH_CALL) && Collections.disjoint(methods, IMMUTABLE_METHODS)) {
+			return super.performIO(payload);
+		}
+		// Read before sending the requests, so the results computed before an invalidation are not cached.
+		final long generation = this.responseCache.getGeneration();
+		final JsonNode requests = this.objectMapper.readTree(payload);
+		if (requests.isArray()) {
+			return performBatchIO(requests, generation);
+		}
+		final String key = cacheKey(requests);
+		if (key == null) {
+			return super.performIO(payload);
+		}
+		final Optional<JsonNode> cachedResult = this.responseCache.get(key);
+		if (cachedResult.isPresent()) {
+			return new ByteArrayInputStream(
+				this.objectMapper.writeValueAsBytes(cachedResponse(requests, cachedResult.get())));
+		}
+		final byte[] response;
+		try (InputStream responseStream = super.performIO(payload)) {
+			if (responseStream == null) {
+				return null;
+			}
+			response = responseStream.readAllBytes();
+		}
+		cacheResult(requests, key, this.objectMapper.readTree(response), generation);
+		return new ByteArrayInputStream(response);
+	}
+
+	/**
+	 * Serves the cacheable requests of a batch from the cache, and sends the other requests to Ganache in a single
+	 * batch. The responses are returned in the same order as the requests.
+	 */
+	private InputStream performBatchIO(final JsonNode requests, final long generation) throws IOException {
+		final List<JsonNode> responses = new ArrayList<>(Collections.nCopies(requests.size(), null));
+		final List<String> keys = new ArrayList<>(Collections.nCopies(requests.size(), null));
+		final ArrayNode sentRequests = this.objectMapper.createArrayNode();
+		for (int i = 0; i < requests.size(); i++) {
+			final JsonNode request = requests.get(i);
+			final String key = cacheKey(request);
+			keys.set(i, key);
+			Optional<JsonNode> cachedResult = Optional.empty();
+			if (key != null) {
+				cachedResult = this.responseCache.get(key);
+			}
+			if (cachedResult.isPresent()) {
+				responses.set(i, cachedResponse(request, cachedResult.get()));
+			} else {
+				sentRequests.add(request);
+			}
+		}
+		if (!sentRequests.isEmpty()) {
+			final byte[] rawResponse;
+			try (InputStream responseStream = super.performIO(this.objectMapper.writeValueAsString(sentRequests))) {
+				if (responseStream == null) {
+					return null;
+				}
+				rawResponse = responseStream.readAllBytes();
+			}
+			final JsonNode sentResponses = this.objectMapper.readTree(rawResponse);
+			if (!sentResponses.isArray()) {
+				// The whole batch has been rejected: the error is returned as is.
+				return new ByteArrayInputStream(rawResponse);
+			}
+			final Map<String, JsonNode> responsesById = new HashMap<>();
+			sentResponses.forEach(response -> responsesById.put(response.path(ID_FIELD).toString(), response));
+			for (int i = 0; i < requests.size(); i++) {
+				if (responses.get(i) == null) {
+					final JsonNode response = responsesById.get(requests.get(i).path(ID_FIELD).toString());
+					responses.set(i, response);
+					if (response != null && keys.get(i) != null) {
+						cacheResult(requests.get(i), keys.get(i), response, generation);
+					}
+				}
+			}
+			// The responses without request identifier are left out, as Ganache would do.
+			responses.removeIf(Objects::isNull);
+		}
+		return new ByteArrayInputStream(this.objectMapper.writeValueAsBytes(responses));
+	}
+
+	private String cacheKey(final JsonNode request) {
+		final String method = request.path(METHOD_FIELD).asText();
+		final JsonNode params = request.path(PARAMS_FIELD);
+		if (!isCacheable(method, params)) {
+			return null;
+		}
+		return method + params;
+	}
+
+	private ObjectNode cachedResponse(final JsonNode request, final JsonNode result) {
+		final ObjectNode response = this.objectMapper.createObjectNode()
+			.put("jsonrpc", "2.0")
+			.set(ID_FIELD, request.path(ID_FIELD));
+		response.set(RESULT_FIELD, result);
+		return response;
+	}
+
+	private void cacheResult(final JsonNode request, final String key, final JsonNode response,
+							 final long generation) {
+		final JsonNode result = response.path(RESULT_FIELD);
+		if (isImmutable(request.path(METHOD_FIELD).asText(), result)) {
+			this.responseCache.put(key, result, generation);
+		}
+	}
+
+	private static Set<String> extractMethods(final String payload) {
+		final Set<String> methods = new HashSet<>();
+		final Matcher methodMatcher = METHOD_PATTERN.matcher(payload);
+		while (methodMatcher.find()) {
+			methods.add(methodMatcher.group(1));
+		}
+		return methods;
+	}
+
+	private static boolean isCacheable(final String method, final JsonNode params) {
+		if (ETH_CALL.equals(method)) {
+			return params.path(1).hasNonNull(BLOCK_HASH_FIELD);
+		}
+		return IMMUTABLE_METHODS.contains(method);
+	}
+
+	private static boolean isImmutable(final String method, final JsonNode result) {
+		if (result.isMissingNode() || result.isNull()) {
+			// Error, unknown block or transaction, or transaction not mined yet.
+			return false;
+		}
+		return !ETH_GET_TRANSACTION_BY_HASH.equals(method) || result.hasNonNull(BLOCK_HASH_FIELD);
+	}
+
+}
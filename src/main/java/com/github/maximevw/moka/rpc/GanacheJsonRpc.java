@@ -0,0 +1,634 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.rpc;
+
+import com.github.maximevw.moka.entities.AccountState;
+import com.github.maximevw.moka.entities.InitAccountData;
+import com.github.maximevw.moka.enums.GanacheVersionLevel;
+import org.apache.commons.lang3.StringUtils;
+import org.web3j.crypto.Credentials;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthCall;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.protocol.core.methods.response.EthTransaction;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.protocol.core.methods.response.Transaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.maximevw.moka.enums.GanacheVersionLevel.V7;
+
+/**
+ * Client for the JSON-RPC methods specific to Ganache (namespaces {@code evm}, {@code miner}, {@code personal}, ...),
+ * not covered by the standard Web3j API.
+ *
+ * @see <a href="https://trufflesuite.com/docs/ganache/reference/ganache-methods/">Ganache JSON-RPC methods</a>
+ */
+public class GanacheJsonRpc {
+
+	/**
+	 * The maximal number of requests sent in a single JSON-RPC batch.
+	 */
+	public static final int MAX_BATCH_SIZE = 1000;
+
+	private static final String ACCOUNTS_PASSPHRASE = StringUtils.EMPTY;
+	private static final Duration RECEIPT_POLLING_INTERVAL = Duration.ofMillis(100);
+	private static final Duration RECEIPT_MAX_WAIT = Duration.ofMinutes(1);
+	private static final long MIN_BLOCK_POLLING_INTERVAL_IN_MILLIS = 10;
+	private static final long MAX_BLOCK_POLLING_INTERVAL_IN_MILLIS = 500;
+
+	private final Web3jService web3jService;
+	private final ReceiptPoller receiptPoller = new ReceiptPoller(this, RECEIPT_POLLING_INTERVAL, RECEIPT_MAX_WAIT);
+	private final List<Runnable> revertListeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param web3jService The Web3j service connected to Ganache.
+	 */
+	public GanacheJsonRpc(final Web3jService web3jService) {
+		this.web3jService = web3jService;
+	}
+
+	/**
+	 * Builds a request to a JSON-RPC method.
+	 *
+	 * @param method The name of the JSON-RPC method.
+	 * @param params The parameters of the method.
+	 * @return The request, which can be sent individually or added to a batch.
+	 */
+	public Request<?, GanacheResponse> request(final String method, final Object... params) {
+		return new Request<>(method, Arrays.asList(params), this.web3jService, GanacheResponse.class);
+	}
+
+	/**
+	 * Sends a JSON-RPC request and checks the response is successful.
+	 *
+	 * @param method The name of the JSON-RPC method.
+	 * @param params The parameters of the method.
+	 * @return The response.
+	 * @throws IllegalStateException when the request fails or Ganache returns an error.
+	 */
+	public GanacheResponse send(final String method, final Object... params) {
+		try {
+			return checkResponse(request(method, params).send());
+		} catch (final IOException ex) {
+			throw new IllegalStateException("Unable to call the JSON-RPC method " + method + ".", ex);
+		}
+	}
+
+	/**
+	 * Sends a list of JSON-RPC requests in as few round trips as possible: the requests are grouped in batches of at
+	 * most {@value #MAX_BATCH_SIZE} requests, sent in parallel.
+	 *
+	 * @param requests The requests to send.
+	 * @return The responses, in the same order as the requests.
+	 * @throws IllegalStateException when a batch cannot be sent or Ganache returns an error for one of the requests.
+	 */
+	public List<Response<?>> sendBatch(final List<? extends Request<?, ? extends Response<?>>> requests) {
+		final List<CompletableFuture<BatchResponse>> batchResponses = new ArrayList<>();
+		for (int from = 0; from < requests.size(); from += MAX_BATCH_SIZE) {
+			final BatchRequest batchRequest = new BatchRequest(this.web3jService);
+			requests.subList(from, Math.min(from + MAX_BATCH_SIZE, requests.size())).forEach(batchRequest::add);
+			batchResponses.add(batchRequest.sendAsync());
+		}
+		final List<Response<?>> responses = new ArrayList<>(requests.size());
+		try {
+			for (final CompletableFuture<BatchResponse> batchResponse : batchResponses) {
+				batchResponse.join().getResponses().forEach(response -> responses.add(checkResponse(response)));
+			}
+		} catch (final CompletionException ex) {
+			throw new IllegalStateException("Unable to send the JSON-RPC batch request.", ex.getCause());
+		}
+		return responses;
+	}
+
+	/**
+	 * Takes a snapshot of the current chain state with the method {@code evm_snapshot}.
+	 *
+	 * @return The identifier of the snapshot.
+	 * @throws IllegalStateException when Ganache fails to take the snapshot.
+	 */
+	public String snapshot() {
+		return send("evm_snapshot").getResultAsString();
+	}
+
+	/**
+	 * Reverts the chain state to a snapshot with the method {@code evm_revert}.
+	 * <p>
+	 *     Note that reverting to a snapshot consumes it, as well as all the snapshots taken after it: a new snapshot
+	 *     must be taken to revert again to the same state.
+	 * </p>
+	 *
+	 * @param snapshotId The identifier of the snapshot.
+	 * @return {@code true} if the chain state has been reverted, {@code false} if the snapshot does not exist.
+	 * @throws IllegalStateException when the request fails.
+	 * @see #addRevertListener(Runnable)
+	 */
+	public boolean revert(final String snapshotId) {
+		final boolean reverted = Boolean.parseBoolean(send("evm_revert", snapshotId).getResultAsString());
+		if (reverted) {
+			this.revertListeners.forEach(Runnable::run);
+		}
+		return reverted;
+	}
+
+	/**
+	 * Registers a listener notified each time the chain state is reverted to a snapshot with {@link #revert(String)},
+	 * for example to resynchronize the state tracked locally (such as the nonces of the accounts) with the chain.
+	 * <p>
+	 *     Note that the reverts sent directly through Web3j (not using this client) are not notified.
+	 * </p>
+	 *
+	 * @param listener The listener, called in the thread reverting the chain state.
+	 */
+	public void addRevertListener(final Runnable listener) {
+		this.revertListeners.add(listener);
+	}
+
+	/**
+	 * Stops the automatic mining of blocks with the method {@code miner_stop}. The submitted transactions are kept
+	 * in the pool of pending transactions until a block is mined.
+	 *
+	 * @throws IllegalStateException when Ganache fails to stop the miner.
+	 */
+	public void stopMiner() {
+		send("miner_stop");
+	}
+
+	/**
+	 * Resumes the automatic mining of blocks with the method {@code miner_start}, according to the configured block
+	 * time and instamine mode.
+	 *
+	 * @throws IllegalStateException when Ganache fails to start the miner.
+	 */
+	public void startMiner() {
+		send("miner_start");
+	}
+
+	/**
+	 * Forces the mining of a block containing the pending transactions with the method {@code evm_mine}, even if
+	 * the miner is stopped.
+	 *
+	 * @return The number of the last block after the mining.
+	 * @throws IllegalStateException when Ganache fails to mine the block.
+	 */
+	public BigInteger mine() {
+		send("evm_mine");
+		return getBlockNumber();
+	}
+
+	/**
+	 * Submits several transactions and includes all of them in a single block.
+	 * <p>
+	 *     The automatic mining is paused ({@code miner_stop}) while the submissions are executed, then a single block
+	 *     is mined ({@code evm_mine}) and the automatic mining is resumed ({@code miner_start}). The submissions must
+	 *     not wait for the receipts of the transactions (e.g. use {@code ethSendTransaction} or
+	 *     {@code ethSendRawTransaction}), since they are not mined until the end of the submissions. The transactions
+	 *     exceeding the block gas limit remain pending and are mined once the automatic mining is resumed.
+	 * </p>
+	 *
+	 * @param submissions The submissions of the transactions to include in the block.
+	 * @return The receipts of the transactions included in the mined block, fetched in one batch.
+	 * @throws IllegalStateException when Ganache fails to mine the block or to return the receipts.
+	 */
+	public synchronized List<TransactionReceipt> mineSingleBlock(final Runnable submissions) {
+		final BigInteger blockNumber;
+		stopMiner();
+		try {
+			submissions.run();
+			blockNumber = mine();
+		} finally {
+			startMiner();
+		}
+		return getTransactionReceipts(getBlockTransactionHashes(blockNumber));
+	}
+
+	/**
+	 * Mines several empty blocks at once.
+	 * <p>
+	 *     Since Ganache v7, all the blocks are mined in a single call to {@code evm_mine} with the option
+	 *     {@code blocks}. With Ganache v6, which does not support this option, the calls to {@code evm_mine} are
+	 *     sent in JSON-RPC batches (see {@link #sendBatch(List)}) to avoid one round trip per block.
+	 * </p>
+	 *
+	 * @param numberOfBlocks The number of blocks to mine.
+	 * @param versionLevel	 The version level of Ganache.
+	 * @return The number of the last block after the mining.
+	 * @throws IllegalArgumentException when the number of blocks is not strictly positive.
+	 * @throws IllegalStateException when Ganache fails to mine the blocks.
+	 */
+	public BigInteger mineBlocks(final int numberOfBlocks, final GanacheVersionLevel versionLevel) {
+		if (numberOfBlocks <= 0) {
+			throw new IllegalArgumentException("The number of blocks to mine must be strictly positive.");
+		}
+		if (versionLevel.getMajorVersion() < V7.getMajorVersion()) {
+			// Each block needs its own request: the requests of a batch are identified by their distinct IDs.
+			sendBatch(IntStream.range(0, numberOfBlocks)
+				.mapToObj(i -> request("evm_mine"))
+				.collect(Collectors.toList()));
+		} else {
+			send("evm_mine", Collections.singletonMap("blocks", numberOfBlocks));
+		}
+		return getBlockNumber();
+	}
+
+	/**
+	 * Moves the time of the chain forward with the method {@code evm_increaseTime}, then mines a block with
+	 * {@code evm_mine} so that the timestamp of the last block reflects the new time.
+	 *
+	 * @param duration The duration to add to the chain time. It is truncated to the second.
+	 * @return The total time adjustment of the chain since its start, in seconds.
+	 * @throws IllegalArgumentException when the duration is less than one second.
+	 * @throws IllegalStateException when Ganache fails to increase the time or to mine the block.
+	 */
+	public long increaseTime(final Duration duration) {
+		if (duration == null || duration.getSeconds() <= 0) {
+			throw new IllegalArgumentException("The duration to add to the chain time must be at least one second.");
+		}
+		final long timeAdjustment = new BigDecimal(send("evm_increaseTime", duration.getSeconds())
+			.getResultAsString()).longValue();
+		send("evm_mine");
+		return timeAdjustment;
+	}
+
+	/**
+	 * Gets the number of the last block with the method {@code eth_blockNumber}.
+	 *
+	 * @return The number of the last block.
+	 * @throws IllegalStateException when the request fails.
+	 */
+	public BigInteger getBlockNumber() {
+		return Numeric.decodeQuantity(send("eth_blockNumber").getResultAsString());
+	}
+
+	/**
+	 * Measures the round-trip time of a basic JSON-RPC request ({@code eth_blockNumber}).
+	 *
+	 * @return The round-trip time of the request.
+	 * @throws IllegalStateException when the request fails.
+	 */
+	public Duration measureLatency() {
+		final long startTime = System.nanoTime();
+		getBlockNumber();
+		return Duration.ofNanos(System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Waits for a block more recent than the given one, polling {@code eth_blockNumber} with an adaptive backoff: the
+	 * interval between two polls starts at {@value #MIN_BLOCK_POLLING_INTERVAL_IN_MILLIS} milliseconds and doubles
+	 * at each poll, up to {@value #MAX_BLOCK_POLLING_INTERVAL_IN_MILLIS} milliseconds.
+	 * <p>
+	 *     Polling works with any {@link Web3jService}, including the HTTP service of the container. Ganache also
+	 *     serves WebSocket on the same port, where a {@code newHeads} subscription could be used instead.
+	 * </p>
+	 *
+	 * @param blockNumber The number of the last known block.
+	 * @param timeout	  The maximal time to wait.
+	 * @return The number of the last block once more recent than the given one, or an empty {@link Optional} if no
+	 * 		   new block has been mined before the timeout (or if the waiting thread is interrupted).
+	 * @throws IllegalStateException when the request fails.
+	 */
+	public Optional<BigInteger> awaitBlockAfter(final BigInteger blockNumber, final Duration timeout) {
+		final long deadline = System.nanoTime() + timeout.toNanos();
+		long pollingInterval = MIN_BLOCK_POLLING_INTERVAL_IN_MILLIS;
+		while (true) {
+			final BigInteger lastBlockNumber = getBlockNumber();
+			final long remainingTime = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			if (lastBlockNumber.compareTo(blockNumber) > 0) {
+				return Optional.of(lastBlockNumber);
+			} else if (remainingTime <= 0) {
+				return Optional.empty();
+			}
+			try {
+				Thread.sleep(Math.min(pollingInterval, remainingTime));
+			} catch (final InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return Optional.empty();
+			}
+			pollingInterval = Math.min(pollingInterval * 2, MAX_BLOCK_POLLING_INTERVAL_IN_MILLIS);
+		}
+	}
+
+	/**
+	 * Gets the hashes of the transactions included in a block.
+	 *
+	 * @param blockNumber The number of the block.
+	 * @return The hashes of the transactions of the block, in the order of their execution.
+	 * @throws IllegalStateException when the request fails or the block does not exist.
+	 */
+	public List<String> getBlockTransactionHashes(final BigInteger blockNumber) {
+		try {
+			final EthBlock ethBlock = checkResponse(new Request<>("eth_getBlockByNumber",
+				Arrays.asList(Numeric.encodeQuantity(blockNumber), false), this.web3jService, EthBlock.class).send());
+			if (ethBlock.getBlock() == null) {
+				throw new IllegalStateException("The block " + blockNumber + " does not exist.");
+			}
+			return ethBlock.getBlock().getTransactions().stream()
+				.map(transaction -> String.valueOf(transaction.get()))
+				.collect(Collectors.toList());
+		} catch (final IOException ex) {
+			throw new IllegalStateException("Unable to get the block " + blockNumber + ".", ex);
+		}
+	}
+
+	/**
+	 * Gets the receipts of several transactions in JSON-RPC batches (see {@link #sendBatch(List)}).
+	 *
+	 * @param transactionHashes The hashes of the transactions.
+	 * @return The receipts in the same order as the transactions hashes. A receipt is {@code null} when the
+	 * 		   corresponding transaction is still pending or unknown.
+	 * @throws IllegalStateException when the requests fail.
+	 */
+	public List<TransactionReceipt> getTransactionReceipts(final List<String> transactionHashes) {
+		final List<Request<?, EthGetTransactionReceipt>> requests = transactionHashes.stream()
+			.map(hash -> new Request<>("eth_getTransactionReceipt", Collections.singletonList(hash),
+				this.web3jService, EthGetTransactionReceipt.class))
+			.collect(Collectors.toList());
+		return sendBatch(requests).stream()
+			.map(response -> ((EthGetTransactionReceipt) response).getTransactionReceipt().orElse(null))
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Gets several transactions in JSON-RPC batches (see {@link #sendBatch(List)}).
+	 *
+	 * @param transactionHashes The hashes of the transactions.
+	 * @return The transactions in the same order as the transactions hashes. A transaction is {@code null} when it
+	 * 		   is unknown.
+	 * @throws IllegalStateException when the requests fail.
+	 */
+	public List<Transaction> getTransactions(final List<String> transactionHashes) {
+		final List<Request<?, EthTransaction>> requests = transactionHashes.stream()
+			.map(hash -> new Request<>("eth_getTransactionByHash", Collections.singletonList(hash),
+				this.web3jService, EthTransaction.class))
+			.collect(Collectors.toList());
+		return sendBatch(requests).stream()
+			.map(response -> ((EthTransaction) response).getTransaction().orElse(null))
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Gets several blocks, with their full transactions, in JSON-RPC batches (see {@link #sendBatch(List)}).
+	 *
+	 * @param blockNumbers The numbers of the blocks.
+	 * @return The blocks, in the same order as the blocks numbers.
+	 * @throws IllegalStateException when the requests fail or a block does not exist.
+	 */
+	public List<EthBlock.Block> getBlocks(final List<BigInteger> blockNumbers) {
+		final List<Request<?, EthBlock>> requests = blockNumbers.stream()
+			.map(blockNumber -> new Request<>("eth_getBlockByNumber",
+				Arrays.asList(Numeric.encodeQuantity(blockNumber), true), this.web3jService, EthBlock.class))
+			.collect(Collectors.toList());
+		final List<EthBlock.Block> blocks = sendBatch(requests).stream()
+			.map(response -> ((EthBlock) response).getBlock())
+			.collect(Collectors.toList());
+		if (blocks.contains(null)) {
+			throw new IllegalStateException("One of the blocks " + blockNumbers + " does not exist.");
+		}
+		return blocks;
+	}
+
+	/**
+	 * Gets the balances of an account at several blocks in a single JSON-RPC batch (see {@link #sendBatch(List)}).
+	 *
+	 * @param address	   The address of the account.
+	 * @param blockNumbers The numbers of the blocks.
+	 * @return The balances in WEI, in the same order as the blocks numbers.
+	 * @throws IllegalStateException when the requests fail.
+	 */
+	public List<BigInteger> getBalances(final String address, final List<BigInteger> blockNumbers) {
+		final List<Request<?, EthGetBalance>> requests = blockNumbers.stream()
+			.map(blockNumber -> new Request<>("eth_getBalance",
+				Arrays.asList(address, Numeric.encodeQuantity(blockNumber)), this.web3jService, EthGetBalance.class))
+			.collect(Collectors.toList());
+		return sendBatch(requests).stream()
+			.map(response -> ((EthGetBalance) response).getBalance())
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Executes several read-only calls with the method {@code eth_call} in JSON-RPC batches (see
+	 * {@link #sendBatch(List)}), all pinned to the same block.
+	 *
+	 * @param calls		  The calls to execute.
+	 * @param blockNumber The number of the block on which the calls are executed.
+	 * @return The data returned by the calls, as hexadecimal strings, in the same order as the calls.
+	 * @throws IllegalStateException when the requests fail or one of the calls reverts.
+	 */
+	public List<String> call(final List<org.web3j.protocol.core.methods.request.Transaction> calls,
+							 final BigInteger blockNumber) {
+		final List<Request<?, EthCall>> requests = calls.stream()
+			.map(call -> new Request<>("eth_call", Arrays.asList(call, Numeric.encodeQuantity(blockNumber)),
+				this.web3jService, EthCall.class))
+			.collect(Collectors.toList());
+		return sendBatch(requests).stream()
+			.map(response -> ((EthCall) response).getValue())
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Gets the logs emitted by all the contracts in a range of blocks with the method {@code eth_getLogs}.
+	 *
+	 * @param fromBlock The number of the first block of the range (inclusive).
+	 * @param toBlock	The number of the last block of the range (inclusive).
+	 * @return The logs, in the order of their emission.
+	 * @throws IllegalStateException when the request fails.
+	 */
+	public List<Log> getLogs(final BigInteger fromBlock, final BigInteger toBlock) {
+		final Map<String, String> filter = new HashMap<>();
+		filter.put("fromBlock", Numeric.encodeQuantity(fromBlock));
+		filter.put("toBlock", Numeric.encodeQuantity(toBlock));
+		try {
+			final EthLog ethLog = checkResponse(new Request<>("eth_getLogs", Collections.singletonList(filter),
+				this.web3jService, EthLog.class).send());
+			return ethLog.getLogs().stream()
+				.map(logResult -> (Log) logResult.get())
+				.collect(Collectors.toList());
+		} catch (final IOException ex) {
+			throw new IllegalStateException("Unable to get the logs from the block " + fromBlock + " to " + toBlock
+				+ ".", ex);
+		}
+	}
+
+	/**
+	 * Waits for the receipts of several transactions without blocking the caller.
+	 * <p>
+	 *     The receipts of all the transactions awaited through this client are polled together, in a single JSON-RPC
+	 *     batch every 100 milliseconds (see {@link ReceiptPoller}), so
+	 *     waiting for thousands of transactions only costs a few round trips.
+	 * </p>
+	 *
+	 * @param transactionHashes The hashes of the transactions.
+	 * @return The futures of the receipts, by transaction hash, completed as soon as the transactions are mined. To
+	 * 		   stop waiting for a transaction, cancel its future or set a timeout on it. The futures of the
+	 * 		   transactions still without receipt after one minute are completed exceptionally.
+	 */
+	public Map<String, CompletableFuture<TransactionReceipt>> awaitReceipts(
+		final Collection<String> transactionHashes) {
+		return this.receiptPoller.await(transactionHashes);
+	}
+
+	/**
+	 * Submits several signed transactions with the method {@code eth_sendRawTransaction} in JSON-RPC batches (see
+	 * {@link #sendBatch(List)}), without waiting for them to be mined.
+	 *
+	 * @param signedTransactions The signed transactions, encoded as hexadecimal strings.
+	 * @return The hashes of the transactions, in the same order as the signed transactions.
+	 * @throws IllegalStateException when the requests fail or Ganache rejects one of the transactions.
+	 */
+	public List<String> sendRawTransactions(final List<String> signedTransactions) {
+		final List<Request<?, EthSendTransaction>> requests = signedTransactions.stream()
+			.map(signedTransaction -> new Request<>("eth_sendRawTransaction",
+				Collections.singletonList(signedTransaction), this.web3jService, EthSendTransaction.class))
+			.collect(Collectors.toList());
+		return sendBatch(requests).stream()
+			.map(response -> ((EthSendTransaction) response).getTransactionHash())
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Sets the state of several accounts without executing any transaction.
+	 * <p>
+	 *     The states are applied with the methods {@code evm_setAccountBalance}, {@code evm_setAccountCode},
+	 *     {@code evm_setAccountStorageAt} and {@code evm_setAccountNonce} sent in JSON-RPC batches (see
+	 *     {@link #sendBatch(List)}).
+	 * </p>
+	 *
+	 * @param states The accounts states, by address.
+	 * @throws IllegalStateException when Ganache fails to apply the states.
+	 */
+	public void setAccountStates(final Map<String, AccountState> states) {
+		final List<Request<?, GanacheResponse>> requests = new ArrayList<>();
+		states.forEach((address, state) -> {
+			if (state.getBalance() != null) {
+				requests.add(request("evm_setAccountBalance", address, toQuantity(state.getBalance())));
+			}
+			if (state.getNonce() != null) {
+				requests.add(request("evm_setAccountNonce", address, toQuantity(state.getNonce())));
+			}
+			if (state.getCode() != null) {
+				requests.add(request("evm_setAccountCode", address, state.getCode()));
+			}
+			if (state.getStorage() != null) {
+				state.getStorage().forEach((slot, value) ->
+					requests.add(request("evm_setAccountStorageAt", address, slot, value)));
+			}
+		});
+		sendBatch(requests);
+	}
+
+	/**
+	 * Imports accounts from their private keys, unlocks them and sets their balances.
+	 * <p>
+	 *     The accounts are imported with the methods {@code personal_importRawKey}, {@code personal_unlockAccount}
+	 *     and {@code evm_setAccountBalance} sent in JSON-RPC batches (see {@link #sendBatch(List)}). Since the batches
+	 *     are sent concurrently, all the accounts are imported before being unlocked and funded in a second round.
+	 * </p>
+	 *
+	 * @param accounts The private keys and balances of the accounts to import.
+	 * @return The addresses of the imported accounts, in the same order as the provided accounts.
+	 * @throws IllegalStateException when Ganache fails to import the accounts.
+	 */
+	public List<String> importAccounts(final List<InitAccountData> accounts) {
+		final List<String> addresses = new ArrayList<>(accounts.size());
+		final List<Request<?, GanacheResponse>> importRequests = new ArrayList<>();
+		final List<Request<?, GanacheResponse>> unlockRequests = new ArrayList<>();
+		accounts.forEach(account -> {
+			final String address = Credentials.create(account.getPrivateKey()).getAddress();
+			addresses.add(address);
+			importRequests.add(request("personal_importRawKey", Numeric.cleanHexPrefix(account.getPrivateKey()),
+				ACCOUNTS_PASSPHRASE));
+			unlockRequests.addAll(unlockAndFund(address, account.getBalanceInWei()));
+		});
+		sendBatch(importRequests);
+		sendBatch(unlockRequests);
+		return addresses;
+	}
+
+	/**
+	 * Adds accounts for which the private key is unknown (for example to impersonate existing accounts of a forked
+	 * chain), unlocks them and sets their balances.
+	 * <p>
+	 *     The accounts are added with the methods {@code evm_addAccount}, {@code personal_unlockAccount} and
+	 *     {@code evm_setAccountBalance} sent in JSON-RPC batches (see {@link #sendBatch(List)}). Since the batches are
+	 *     sent concurrently, all the accounts are added before being unlocked and funded in a second round.
+	 * </p>
+	 *
+	 * @param balancesByAddress The balances in WEI of the accounts to add, by address.
+	 * @throws IllegalStateException when Ganache fails to add the accounts.
+	 */
+	public void addAccounts(final Map<String, BigInteger> balancesByAddress) {
+		final List<Request<?, GanacheResponse>> addRequests = new ArrayList<>();
+		final List<Request<?, GanacheResponse>> unlockRequests = new ArrayList<>();
+		balancesByAddress.forEach((address, balance) -> {
+			addRequests.add(request("evm_addAccount", address, ACCOUNTS_PASSPHRASE));
+			unlockRequests.addAll(unlockAndFund(address, balance));
+		});
+		sendBatch(addRequests);
+		sendBatch(unlockRequests);
+	}
+
+	private List<Request<?, GanacheResponse>> unlockAndFund(final String address, final BigInteger balance) {
+		final List<Request<?, GanacheResponse>> requests = new ArrayList<>();
+		requests.add(request("personal_unlockAccount", address, ACCOUNTS_PASSPHRASE, 0));
+		if (balance != null) {
+			requests.add(request("evm_setAccountBalance", address, Numeric.encodeQuantity(balance)));
+		}
+		return requests;
+	}
+
+	/**
+	 * Converts a numeric value to a hexadecimal quantity, as expected by the JSON-RPC methods.
+	 *
+	 * @param value The value, either decimal or already hexadecimal (prefixed by {@code 0x}).
+	 * @return The hexadecimal quantity.
+	 */
+	public static String toQuantity(final String value) {
+		if (Numeric.containsHexPrefix(value)) {
+			return value;
+		}
+		return Numeric.encodeQuantity(new BigInteger(value));
+	}
+
+	private static <T extends Response<?>> T checkResponse(final T response) {
+		if (response.hasError()) {
+			throw new IllegalStateException("Ganache returned an error: " + response.getError().getMessage());
+		}
+		return response;
+	}
+
+}
@@ -0,0 +1,31 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.rpc;
+
+import org.web3j.protocol.core.Response;
+
+/**
+ * A generic response to a Ganache-specific JSON-RPC method (for example {@code evm_snapshot} or
+ * {@code evm_setAccountBalance}). Depending on the method, the result may be a boolean, a string or a JSON object.
+ */
+public class GanacheResponse extends Response<Object> {
+
+	/**
+	 * Gets the result as a string.
+	 *
+	 * @return The string representation of the result or {@code null} if there is no result.
+	 */
+	public String getResultAsString() {
+		if (getResult() == null) {
+			return null;
+		}
+		return String.valueOf(getResult());
+	}
+
+}
@@ -0,0 +1,222 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.rpc;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * A poller of transactions receipts, fetching the receipts of all the pending transactions in a single JSON-RPC
+ * batch per tick and completing the futures of the receipts as soon as they are available.
+ * <p>
+ *     The polling runs in a background daemon thread which only lives while there are pending transactions. Each
+ *     caller gets its own future, so cancelling it does not affect the other callers waiting for the same
+ *     transaction. The transactions whose futures are all completed or cancelled by the callers (for example with
+ *     {@link CompletableFuture#orTimeout(long, java.util.concurrent.TimeUnit)}) are not polled anymore. When a poll
+ *     fails, the receipts are polled again at the next tick; after {@value #MAX_CONSECUTIVE_FAILURES} consecutive
+ *     failures (for example because the container is stopped), all the pending futures are completed exceptionally.
+ *     The futures of the transactions without receipt after the maximal wait (for example because the transactions
+ *     are unknown or have been dropped) are completed exceptionally too, so the poller does not poll them forever.
+ * </p>
+ *
+ * @see GanacheJsonRpc#awaitReceipts(Collection)
+ */
+@Slf4j(topic = "GanacheContainer")
+public class ReceiptPoller {
+
+	private static final int MAX_CONSECUTIVE_FAILURES = 10;
+
+	private final GanacheJsonRpc ganacheJsonRpc;
+	private final Duration pollingInterval;
+	private final Duration maxWait;
+	private final Map<String, PendingReceipt> pendingReceipts = new ConcurrentHashMap<>();
+	private boolean polling;
+	private int consecutiveFailures;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param ganacheJsonRpc  The client used to fetch the receipts.
+	 * @param pollingInterval The interval between two polls.
+	 * @param maxWait		  The maximal wait for the receipt of a transaction, from the last call to
+	 * 						  {@link #await(Collection)} for this transaction.
+	 * @throws IllegalArgumentException when the maximal wait is not strictly positive.
+	 */
+	public ReceiptPoller(final GanacheJsonRpc ganacheJsonRpc, final Duration pollingInterval, final Duration maxWait) {
+		if (maxWait.isNegative() || maxWait.isZero()) {
+			throw new IllegalArgumentException("The maximal wait for the receipts must be strictly positive.");
+		}
+		this.ganacheJsonRpc = ganacheJsonRpc;
+		this.pollingInterval = pollingInterval;
+		this.maxWait = maxWait;
+	}
+
+	/**
+	 * Waits for the receipts of several transactions.
+	 *
+	 * @param transactionHashes The hashes of the transactions.
+	 * @return The futures of the receipts, by transaction hash in the same order as the provided hashes. The futures
+	 * 		   are specific to this call, so they can be cancelled without affecting the other callers. They are
+	 * 		   completed exceptionally with an {@link IllegalStateException} when there is still no receipt after the
+	 * 		   maximal wait.
+	 */
+	public synchronized Map<String, CompletableFuture<TransactionReceipt>> await(
+		final Collection<String> transactionHashes) {
+		final Map<String, CompletableFuture<TransactionReceipt>> receipts = new LinkedHashMap<>();
+		transactionHashes.forEach(hash ->
+			receipts.put(hash, this.pendingReceipts.computeIfAbsent(hash, key -> new PendingReceipt())
+				.addWaiter(this.maxWait)));
+		if (!this.polling && !this.pendingReceipts.isEmpty()) {
+			this.polling = true;
+			final Thread pollingThread = new Thread(this::pollWhilePending, "ganache-receipt-poller");
+			pollingThread.setDaemon(true);
+			pollingThread.start();
+		}
+		return receipts;
+	}
+
+	private void pollWhilePending() {
+		try {
+			while (hasPendingReceipts()) {
+				Thread.sleep(this.pollingInterval.toMillis());
+				poll();
+				expireOverdueReceipts();
+			}
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			synchronized (this) {
+				this.polling = false;
+			}
+		}
+	}
+
+	private synchronized boolean hasPendingReceipts() {
+		this.pendingReceipts.values().removeIf(PendingReceipt::isSettled);
+		// Stop the polling thread under the lock, so a concurrent call to await() starts a new one if needed.
+		this.polling = !this.pendingReceipts.isEmpty();
+		return this.polling;
+	}
+
+	private void poll() {
+		final List<String> transactionHashes = new ArrayList<>(this.pendingReceipts.keySet());
+		final List<TransactionReceipt> receipts;
+		try {
+			receipts = this.ganacheJsonRpc.getTransactionReceipts(transactionHashes);
+		} catch (final IllegalStateException ex) {
+			this.consecutiveFailures++;
+			if (this.consecutiveFailures < MAX_CONSECUTIVE_FAILURES) {
+				log.debug("Unable to poll the transactions receipts, retrying at the next tick: {}", ex.getMessage());
+				return;
+			}
+			log.warn("Unable to poll the transactions receipts after {} attempts: {}", this.consecutiveFailures,
+				ex.getMessage());
+			this.consecutiveFailures = 0;
+			transactionHashes.forEach(hash -> completeReceipt(hash, null, ex));
+			return;
+		}
+		this.consecutiveFailures = 0;
+		for (int i = 0; i < receipts.size(); i++) {
+			if (receipts.get(i) != null) {
+				completeReceipt(transactionHashes.get(i), receipts.get(i), null);
+			}
+		}
+	}
+
+	private void expireOverdueReceipts() {
+		final long now = System.nanoTime();
+		this.pendingReceipts.forEach((transactionHash, pendingReceipt) -> {
+			if (pendingReceipt.isOverdue(now)) {
+				completeReceipt(transactionHash, null, new IllegalStateException("No receipt for the transaction "
+					+ transactionHash + " after " + this.maxWait.toMillis() + " ms: the transaction is unknown, has "
+					+ "been dropped or is still pending."));
+			}
+		});
+	}
+
+	private void completeReceipt(final String transactionHash, final TransactionReceipt receipt,
+								 final Throwable failure) {
+		final PendingReceipt pendingReceipt = this.pendingReceipts.remove(transactionHash);
+		if (pendingReceipt == null) {
+			return;
+		}
+		if (failure != null) {
+			pendingReceipt.getReceipt().completeExceptionally(failure);
+		} else {
+			pendingReceipt.getReceipt().complete(receipt);
+		}
+	}
+
+	/**
+	 * The receipt of a pending transaction, with the futures of the callers waiting for it.
+	 */
+	@Getter
+	private static final class PendingReceipt {
+
+		/**
+		 * The future of the receipt, completed by the poller.
+		 */
+		private final CompletableFuture<TransactionReceipt> receipt = new CompletableFuture<>();
+
+		/**
+		 * The futures returned to the callers, depending on the future of the receipt.
+		 */
+		private final List<CompletableFuture<TransactionReceipt>> waiters = new CopyOnWriteArrayList<>();
+
+		/**
+		 * The time ({@link System#nanoTime()}) after which the receipt is not polled anymore.
+		 */
+		private volatile long deadline;
+
+		/**
+		 * Creates a new future for a caller waiting for the receipt, and postpones the deadline of the receipt.
+		 *
+		 * @param maxWait The maximal wait for the receipt from now.
+		 * @return The future of the receipt for the caller.
+		 */
+		CompletableFuture<TransactionReceipt> addWaiter(final Duration maxWait) {
+			final CompletableFuture<TransactionReceipt> waiter = this.receipt.thenApply(Function.identity());
+			this.waiters.add(waiter);
+			this.deadline = System.nanoTime() + maxWait.toNanos();
+			return waiter;
+		}
+
+		/**
+		 * Whether the deadline of the receipt has passed.
+		 *
+		 * @param now The current time ({@link System#nanoTime()}).
+		 * @return {@code true} if the receipt must not be polled anymore.
+		 */
+		boolean isOverdue(final long now) {
+			return now - this.deadline > 0;
+		}
+
+		/**
+		 * Whether the receipt has been fetched or nobody waits for it anymore.
+		 *
+		 * @return {@code true} if the receipt does not need to be polled anymore.
+		 */
+		boolean isSettled() {
+			return this.receipt.isDone() || this.waiters.stream().allMatch(CompletableFuture::isDone);
+		}
+
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.rpc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A bounded LRU cache of the results of the JSON-RPC calls whose response never changes once available (see
+ * {@link CachingHttpService} for the list of the cached methods), with hit and miss counters to measure its
+ * efficiency. When the capacity is reached, the least recently used result is evicted.
+ * <p>
+ *     Each invalidation starts a new generation of the cache: the results of the calls sent before an invalidation
+ *     and received after it are not cached, since they may have been computed on the discarded chain state.
+ * </p>
+ */
+public class ResponseCache {
+
+	private static final int MAX_INITIAL_CAPACITY = 1024;
+	private static final float LOAD_FACTOR = 0.75f;
+
+	/**
+	 * The maximal number of results kept in the cache.
+	 */
+	@Getter
+	private final int maxEntries;
+
+	private final Map<String, JsonNode> results;
+	private long hits;
+	private long misses;
+	private long invalidations;
+	private long generation;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxEntries The maximal number of results kept in the cache.
+	 * @throws IllegalArgumentException when the specified capacity is not strictly positive.
+	 */
+	public ResponseCache(final int maxEntries) {
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("The capacity of the response cache must be strictly positive.");
+		}
+		this.maxEntries = maxEntries;
+		this.results = new LinkedHashMap<>(Math.min(maxEntries, MAX_INITIAL_CAPACITY), LOAD_FACTOR, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, JsonNode> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Gets the cached result of a call and counts a hit or a miss.
+	 *
+	 * @param key The key of the call (method and parameters).
+	 * @return The cached result, or an empty {@link Optional} if the call is not cached.
+	 */
+	synchronized Optional<JsonNode> get(final String key) {
+		final JsonNode result = this.results.get(key);
+		if (result == null) {
+			this.misses++;
+		} else {
+			this.hits++;
+		}
+		return Optional.ofNullable(result);
+	}
+
+	/**
+	 * Caches the result of a call, unless the cache has been invalidated since the call was sent.
+	 *
+	 * @param key		 The key of the call (method and parameters).
+	 * @param result	 The result.
+	 * @param generation The generation of the cache read before sending the call (see {@link #getGeneration()}).
+	 */
+	synchronized void put(final String key, final JsonNode result, final long generation) {
+		if (generation == this.generation) {
+			this.results.put(key, result);
+		}
+	}
+
+	/**
+	 * Gets the current generation of the cache, incremented by each invalidation.
+	 *
+	 * @return The generation of the cache.
+	 */
+	synchronized long getGeneration() {
+		return this.generation;
+	}
+
+	/**
+	 * Removes all the cached results, for example when the chain state is reverted. The counters are not reset.
+	 */
+	public synchronized void invalidate() {
+		this.generation++;
+		if (!this.results.isEmpty()) {
+			this.results.clear();
+			this.invalidations++;
+		}
+	}
+
+	/**
+	 * Gets the number of calls served from the cache.
+	 *
+	 * @return The number of cache hits.
+	 */
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Gets the number of cacheable calls which were not in the cache and have been sent to Ganache.
+	 *
+	 * @return The number of cache misses.
+	 */
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * Gets the ratio of the cacheable calls served from the cache.
+	 *
+	 * @return The hit ratio, between 0 and 1 (0 when no cacheable call has been made yet).
+	 */
+	public synchronized double getHitRatio() {
+		if (this.hits + this.misses == 0) {
+			return 0;
+		}
+		return (double) this.hits / (this.hits + this.misses);
+	}
+
+	/**
+	 * Gets the number of times the non-empty cache has been invalidated.
+	 *
+	 * @return The number of invalidations.
+	 */
+	public synchronized long getInvalidations() {
+		return this.invalidations;
+	}
+
+	/**
+	 * Gets the number of results currently cached.
+	 *
+	 * @return The size of the cache.
+	 */
+	public synchronized int getSize() {
+		return this.results.size();
+	}
+
+}
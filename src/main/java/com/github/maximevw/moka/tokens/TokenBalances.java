@@ -0,0 +1,161 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.tokens;
+
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.asserts.TokenBalanceAssertions;
+import com.github.maximevw.moka.rpc.GanacheJsonRpc;
+import lombok.Getter;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The balances of several holders of a token (ERC-20 or a given ERC-1155 token), with a checkpoint to assert their
+ * variations (see {@link TokenBalanceAssertions}).
+ * <p>
+ *     All the balances are read with a single JSON-RPC batch of {@code balanceOf} calls, pinned to the same block, so
+ *     checking the balances of many holders only costs two round trips (the batch and the request of the last block
+ *     number). No aggregator contract (such as Multicall) is deployed: the batch does not require any change to the
+ *     tested chain.
+ * </p>
+ */
+public final class TokenBalances {
+
+	private static final String BALANCE_OF = "balanceOf";
+
+	private final GanacheContainer<?> ganacheContainer;
+	private final BigInteger tokenId;
+	private Map<String, BigInteger> lastBalances;
+
+	/**
+	 * The address of the token contract.
+	 */
+	@Getter
+	private final String tokenAddress;
+
+	/**
+	 * The addresses of the token holders.
+	 */
+	@Getter
+	private final List<String> holders;
+
+	private TokenBalances(final GanacheContainer<?> ganacheContainer, final String tokenAddress,
+						  final BigInteger tokenId, final List<String> holders) {
+		if (holders.isEmpty()) {
+			throw new IllegalArgumentException("At least one token holder is required.");
+		}
+		this.ganacheContainer = ganacheContainer;
+		this.tokenAddress = tokenAddress;
+		this.tokenId = tokenId;
+		this.holders = Collections.unmodifiableList(new ArrayList<>(holders));
+	}
+
+	/**
+	 * Creates the balances of several holders of an ERC-20 token and checkpoints them.
+	 *
+	 * @param ganacheContainer The Ganache container in which the token is deployed.
+	 * @param tokenAddress	   The address of the ERC-20 contract.
+	 * @param holders		   The addresses of the token holders.
+	 * @return The checkpointed balances.
+	 * @throws IllegalArgumentException when no holder is provided.
+	 * @throws IllegalStateException when the balances cannot be read.
+	 */
+	public static TokenBalances erc20(final GanacheContainer<?> ganacheContainer, final String tokenAddress,
+									  final List<String> holders) {
+		final TokenBalances tokenBalances = new TokenBalances(ganacheContainer, tokenAddress, null, holders);
+		tokenBalances.checkpoint();
+		return tokenBalances;
+	}
+
+	/**
+	 * Creates the balances of several holders of an ERC-1155 token and checkpoints them.
+	 *
+	 * @param ganacheContainer The Ganache container in which the token is deployed.
+	 * @param tokenAddress	   The address of the ERC-1155 contract.
+	 * @param tokenId		   The identifier of the token.
+	 * @param holders		   The addresses of the token holders.
+	 * @return The checkpointed balances.
+	 * @throws IllegalArgumentException when no holder is provided.
+	 * @throws IllegalStateException when the balances cannot be read.
+	 */
+	public static TokenBalances erc1155(final GanacheContainer<?> ganacheContainer, final String tokenAddress,
+										final BigInteger tokenId, final List<String> holders) {
+		final TokenBalances tokenBalances = new TokenBalances(ganacheContainer, tokenAddress, tokenId, holders);
+		tokenBalances.checkpoint();
+		return tokenBalances;
+	}
+
+	/**
+	 * Gets the current balances of the holders.
+	 *
+	 * @return The balances, by lowercase holder address in the order of the holders.
+	 * @throws IllegalStateException when the balances cannot be read.
+	 */
+	public Map<String, BigInteger> getBalances() {
+		final GanacheJsonRpc ganacheJsonRpc = this.ganacheContainer.getGanacheJsonRpc();
+		final List<Transaction> calls = this.holders.stream()
+			.map(holder -> Transaction.createEthCallTransaction(holder, this.tokenAddress,
+				FunctionEncoder.encode(balanceOf(holder))))
+			.collect(Collectors.toList());
+		final List<String> results = ganacheJsonRpc.call(calls, ganacheJsonRpc.getBlockNumber());
+		final Map<String, BigInteger> balances = new LinkedHashMap<>();
+		for (int i = 0; i < this.holders.size(); i++) {
+			if (Numeric.cleanHexPrefix(results.get(i)).isEmpty()) {
+				throw new IllegalStateException("The contract " + this.tokenAddress + " returned no balance for "
+					+ this.holders.get(i) + ": is it a token contract?");
+			}
+			// The keys are normalized, so that checksummed and lowercase addresses designate the same holder.
+			balances.put(this.holders.get(i).toLowerCase(Locale.ROOT), Numeric.toBigInt(results.get(i)));
+		}
+		return balances;
+	}
+
+	/**
+	 * Gets the balances of the holders at the last checkpoint.
+	 *
+	 * @return The balances, by lowercase holder address in the order of the holders.
+	 */
+	public synchronized Map<String, BigInteger> getLastBalances() {
+		return Collections.unmodifiableMap(this.lastBalances);
+	}
+
+	/**
+	 * Creates a new checkpoint of the balances of the holders.
+	 *
+	 * @throws IllegalStateException when the balances cannot be read.
+	 */
+	public synchronized void checkpoint() {
+		this.lastBalances = getBalances();
+	}
+
+	@SuppressWarnings("rawtypes")
+	private Function balanceOf(final String holder) {
+		final List<Type> parameters = new ArrayList<>();
+		parameters.add(new Address(holder));
+		if (this.tokenId != null) {
+			parameters.add(new Uint256(this.tokenId));
+		}
+		return new Function(BALANCE_OF, parameters, Collections.emptyList());
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.trace;
+
+import lombok.Getter;
+
+/**
+ * The gas consumed by a call frame of a {@link GasProfile}, aggregated over all the calls of the same frame.
+ */
+@Getter
+public class FrameGas {
+
+	/**
+	 * The label of the frame: the address of the called contract, followed by the function selector when it is
+	 * resolved (e.g. {@code 0x5fbdb2315678afecb367f032d93f642f64180aa3:0xa9059cbb}).
+	 */
+	private final String label;
+
+	/**
+	 * The number of calls of the frame.
+	 */
+	private long calls;
+
+	/**
+	 * The gas consumed by the opcodes executed in the frame itself.
+	 */
+	private long selfGas;
+
+	/**
+	 * The gas consumed by the frame and all the frames it called. For recursive calls, the gas of the nested calls
+	 * is counted once per level of recursion.
+	 */
+	private long inclusiveGas;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param label The label of the frame.
+	 */
+	FrameGas(final String label) {
+		this.label = label;
+	}
+
+	/**
+	 * Adds a call of the frame.
+	 *
+	 * @param callSelfGas	   The gas consumed by the call itself.
+	 * @param callInclusiveGas The gas consumed by the call and its nested calls.
+	 */
+	void addCall(final long callSelfGas, final long callInclusiveGas) {
+		this.calls++;
+		this.selfGas += callSelfGas;
+		this.inclusiveGas += callInclusiveGas;
+	}
+
+}
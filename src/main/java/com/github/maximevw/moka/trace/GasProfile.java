@@ -0,0 +1,188 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.trace;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * The gas consumed by one or several transactions, aggregated by call frame and by opcode by a {@link GasProfiler}.
+ */
+public class GasProfile {
+
+	private static final double PERCENT = 100d;
+
+	private final Map<String, Long> collapsedStacks = new TreeMap<>();
+	private final Map<String, Long> gasByOpcode = new HashMap<>();
+	private final Map<String, FrameGas> gasByFrame = new HashMap<>();
+
+	/**
+	 * The number of profiled transactions.
+	 */
+	@Getter
+	private long transactionsCount;
+
+	/**
+	 * The total gas used by the profiled transactions, as reported by Ganache (after the refunds).
+	 */
+	@Getter
+	private long totalGas;
+
+	/**
+	 * The total gas refunded to the senders of the profiled transactions at the end of their execution (for example
+	 * for the storage slots cleared by {@code SSTORE}).
+	 */
+	@Getter
+	private long refundedGas;
+
+	/**
+	 * Gets the gas consumed by each stack of call frames, the last element of each stack being the executed opcode
+	 * (e.g. {@code 0x5fbd...0aa3:0xa9059cbb;0xe7f1...0512;SSTORE}). The gas not consumed by any opcode (the intrinsic
+	 * gas of the transactions) is reported under the pseudo-opcode {@code [intrinsic]} of the root frames.
+	 * <p>
+	 *     The gas is reported before the refunds, so the total of the stacks is the total gas used plus the refunded
+	 *     gas.
+	 * </p>
+	 *
+	 * @return The gas consumed by stack, sorted by stack.
+	 */
+	public Map<String, Long> getCollapsedStacks() {
+		return Collections.unmodifiableMap(this.collapsedStacks);
+	}
+
+	/**
+	 * Gets the gas consumed by opcode, over all the call frames.
+	 *
+	 * @return The gas consumed by opcode.
+	 */
+	public Map<String, Long> getGasByOpcode() {
+		return Collections.unmodifiableMap(this.gasByOpcode);
+	}
+
+	/**
+	 * Gets the gas consumed by call frame.
+	 *
+	 * @return The gas consumed by call frame, by frame label.
+	 */
+	public Map<String, FrameGas> getGasByFrame() {
+		return Collections.unmodifiableMap(this.gasByFrame);
+	}
+
+	/**
+	 * Gets the opcodes consuming the most gas.
+	 *
+	 * @param limit The maximal number of opcodes to return.
+	 * @return The opcodes and the gas they consumed, by decreasing gas.
+	 */
+	public List<Map.Entry<String, Long>> getTopOpcodes(final int limit) {
+		return this.gasByOpcode.entrySet().stream()
+			.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+			.limit(limit)
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Gets the call frames consuming the most gas by themselves (excluding their nested calls).
+	 *
+	 * @param limit The maximal number of frames to return.
+	 * @return The frames, by decreasing self gas.
+	 */
+	public List<FrameGas> getTopFrames(final int limit) {
+		return this.gasByFrame.values().stream()
+			.sorted(Comparator.comparingLong(FrameGas::getSelfGas).reversed())
+			.limit(limit)
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Writes the collapsed stacks in a file, one stack per line followed by its gas, as expected by the flame graph
+	 * tools (e.g. {@code flamegraph.pl} or speedscope).
+	 *
+	 * @param file The path of the file to write.
+	 * @throws IllegalStateException when the file cannot be written.
+	 */
+	public void writeCollapsedStacks(final Path file) {
+		final List<String> lines = this.collapsedStacks.entrySet().stream()
+			.map(entry -> entry.getKey() + " " + entry.getValue())
+			.collect(Collectors.toList());
+		try {
+			Files.write(file, lines, StandardCharsets.UTF_8);
+		} catch (final IOException ex) {
+			throw new IllegalStateException("Unable to write the collapsed stacks in " + file + ".", ex);
+		}
+	}
+
+	/**
+	 * Builds a human-readable summary of the profile, with the call frames and the opcodes consuming the most gas.
+	 *
+	 * @param limit The maximal number of frames and opcodes to include.
+	 * @return The summary.
+	 */
+	public String summarize(final int limit) {
+		final StringBuilder summary = new StringBuilder(String.format(
+			"Gas profile of %d transaction(s): %d gas (%d refunded)%n", this.transactionsCount, this.totalGas,
+			this.refundedGas));
+		summary.append(String.format("Top call frames (self gas / inclusive gas / calls):%n"));
+		getTopFrames(limit).forEach(frame -> summary.append(String.format("  %s: %d / %d / %d%n", frame.getLabel(),
+			frame.getSelfGas(), frame.getInclusiveGas(), frame.getCalls())));
+		summary.append(String.format("Top opcodes:%n"));
+		getTopOpcodes(limit).forEach(opcode -> summary.append(String.format("  %s: %d (%.1f%%)%n", opcode.getKey(),
+			opcode.getValue(), opcode.getValue() * PERCENT / Math.max(1, this.totalGas + this.refundedGas))));
+		return summary.toString();
+	}
+
+	/**
+	 * Adds a profiled transaction.
+	 *
+	 * @param gasUsed	   The gas used by the transaction, after the refund.
+	 * @param refundedGas The gas refunded at the end of the transaction.
+	 */
+	void addTransaction(final long gasUsed, final long refundedGas) {
+		this.transactionsCount++;
+		this.totalGas += gasUsed;
+		this.refundedGas += refundedGas;
+	}
+
+	/**
+	 * Adds the gas consumed by an opcode.
+	 *
+	 * @param stack  The stack of call frames executing the opcode.
+	 * @param opcode The opcode, or a pseudo-opcode not counted in the gas by opcode when it is between brackets.
+	 * @param gas	 The consumed gas.
+	 */
+	void addStep(final String stack, final String opcode, final long gas) {
+		this.collapsedStacks.merge(stack + ";" + opcode, gas, Long::sum);
+		if (!opcode.startsWith("[")) {
+			this.gasByOpcode.merge(opcode, gas, Long::sum);
+		}
+	}
+
+	/**
+	 * Adds a call of a frame.
+	 *
+	 * @param label		   The label of the frame.
+	 * @param selfGas	   The gas consumed by the call itself.
+	 * @param inclusiveGas The gas consumed by the call and its nested calls.
+	 */
+	void addFrame(final String label, final long selfGas, final long inclusiveGas) {
+		this.gasByFrame.computeIfAbsent(label, FrameGas::new).addCall(selfGas, inclusiveGas);
+	}
+
+}
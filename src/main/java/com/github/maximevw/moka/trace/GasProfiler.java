@@ -0,0 +1,335 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.trace;
+
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.entities.StructLog;
+import com.github.maximevw.moka.entities.TraceOptions;
+import com.github.maximevw.moka.entities.TraceSummary;
+import com.github.maximevw.moka.rpc.GanacheJsonRpc;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.web3j.protocol.core.methods.response.Transaction;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A profiler of the gas consumed by transactions, aggregating the steps of their traces (streamed with
+ * {@link GanacheContainer#traceTransaction(String, TraceOptions, Consumer)}) by call frame and by opcode.
+ * <p>
+ *     The gas consumed by a step is the difference between the remaining gas before this step and before the next
+ *     step of the same call frame. For the calls to other contracts, the gas consumed by the called frame is deducted,
+ *     so that each unit of gas is only attributed to one frame. The last step of a frame is attributed its gas cost.
+ *     The intrinsic gas of a transaction is the difference between its gas limit and the remaining gas before its
+ *     first step. The steps are profiled before the refund granted at the end of the transaction, which is reported
+ *     separately (see {@link GasProfile#getRefundedGas()}).
+ * </p>
+ * <p>
+ *     The call frames are labelled by the address of the called contract. When the selectors resolution is enabled,
+ *     the label is completed by the selector of the called function: the selector of the transaction is read in its
+ *     input data, and the selectors of the nested calls are read in the EVM memory at the offset of the call
+ *     arguments. This heuristic requires the memory in the traces, which makes them much larger.
+ * </p>
+ */
+@Slf4j(topic = "GanacheContainer")
+public class GasProfiler {
+
+	private static final Set<String> CALL_OPCODES = Set.of("CALL", "CALLCODE", "DELEGATECALL", "STATICCALL");
+	private static final Set<String> CREATE_OPCODES = Set.of("CREATE", "CREATE2");
+	private static final String CREATE_LABEL = "CREATE";
+	private static final String INTRINSIC_PSEUDO_OPCODE = "[intrinsic]";
+	private static final String STACK_SEPARATOR = ";";
+	private static final int ADDRESS_HEX_LENGTH = 40;
+	private static final int SELECTOR_HEX_LENGTH = 8;
+	private static final int WORD_SIZE = 32;
+	private static final int CALL_ARGS_OFFSET_POSITION = 4;
+	private static final int STATIC_CALL_ARGS_OFFSET_POSITION = 3;
+
+	private final GanacheContainer<?> ganacheContainer;
+	private final boolean selectorsResolution;
+
+	/**
+	 * Constructor of a profiler labelling the call frames by contract address only.
+	 *
+	 * @param ganacheContainer The Ganache container executing the profiled transactions.
+	 */
+	public GasProfiler(final GanacheContainer<?> ganacheContainer) {
+		this(ganacheContainer, false);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param ganacheContainer	  The Ganache container executing the profiled transactions.
+	 * @param selectorsResolution Whether the call frames are labelled by contract address and function selector.
+	 */
+	public GasProfiler(final GanacheContainer<?> ganacheContainer, final boolean selectorsResolution) {
+		this.ganacheContainer = ganacheContainer;
+		this.selectorsResolution = selectorsResolution;
+	}
+
+	/**
+	 * Profiles a transaction.
+	 *
+	 * @param transactionHash The hash of the transaction.
+	 * @return The gas profile of the transaction.
+	 * @throws IllegalStateException when the transaction cannot be traced.
+	 */
+	public GasProfile profile(final String transactionHash) {
+		return profile(Collections.singletonList(transactionHash));
+	}
+
+	/**
+	 * Profiles several transactions, aggregated in a single profile.
+	 *
+	 * @param transactionHashes The hashes of the transactions.
+	 * @return The gas profile of the transactions.
+	 * @throws IllegalStateException when a transaction cannot be traced.
+	 */
+	public GasProfile profile(final List<String> transactionHashes) {
+		final GasProfile gasProfile = new GasProfile();
+		transactionHashes.forEach(transactionHash -> profileTransaction(transactionHash, gasProfile));
+		return gasProfile;
+	}
+
+	/**
+	 * Profiles the transactions mined while running a scenario, for example the body of a test.
+	 * <p>
+	 *     All the transactions mined in the meantime are profiled, including the ones not sent by the scenario. The
+	 *     transactions still pending at the end of the scenario are not profiled.
+	 * </p>
+	 *
+	 * @param scenario The scenario sending the transactions.
+	 * @return The gas profile of the transactions.
+	 * @throws IllegalStateException when a transaction cannot be traced.
+	 */
+	public GasProfile profile(final Runnable scenario) {
+		final GanacheJsonRpc ganacheJsonRpc = this.ganacheContainer.getGanacheJsonRpc();
+		final BigInteger firstBlock = ganacheJsonRpc.getBlockNumber().add(BigInteger.ONE);
+		scenario.run();
+		return profileBlocks(firstBlock, ganacheJsonRpc.getBlockNumber());
+	}
+
+	/**
+	 * Profiles the transactions of a range of blocks.
+	 *
+	 * @param fromBlock The number of the first block of the range (inclusive).
+	 * @param toBlock	The number of the last block of the range (inclusive).
+	 * @return The gas profile of the transactions.
+	 * @throws IllegalStateException when a block or a transaction cannot be retrieved.
+	 */
+	public GasProfile profileBlocks(final BigInteger fromBlock, final BigInteger toBlock) {
+		final GanacheJsonRpc ganacheJsonRpc = this.ganacheContainer.getGanacheJsonRpc();
+		final List<String> transactionHashes = new ArrayList<>();
+		for (BigInteger block = fromBlock; block.compareTo(toBlock) <= 0; block = block.add(BigInteger.ONE)) {
+			transactionHashes.addAll(ganacheJsonRpc.getBlockTransactionHashes(block));
+		}
+		return profile(transactionHashes);
+	}
+
+	private void profileTransaction(final String transactionHash, final GasProfile gasProfile) {
+		final Transaction transaction;
+		try {
+			transaction = this.ganacheContainer.getWeb3j().ethGetTransactionByHash(transactionHash).send()
+				.getTransaction()
+				.orElseThrow(() -> new IllegalStateException("Unknown transaction " + transactionHash + "."));
+		} catch (final IOException ex) {
+			throw new IllegalStateException("Unable to get the transaction " + transactionHash + ".", ex);
+		}
+		String rootLabel = CREATE_LABEL;
+		if (transaction.getTo() != null) {
+			rootLabel = label(transaction.getTo(), selector(Numeric.cleanHexPrefix(transaction.getInput())));
+		}
+		final TraceWalker traceWalker = new TraceWalker(gasProfile, rootLabel);
+		final TraceSummary traceSummary = this.ganacheContainer.traceTransaction(transactionHash,
+			TraceOptions.builder().disableStorage(true).disableMemory(!this.selectorsResolution).build(),
+			traceWalker);
+		final long executionGas = traceWalker.finish();
+		final long gasUsed = traceSummary.getGas();
+		// Without any step (e.g. a transfer to an account without code), all the gas used is intrinsic.
+		long intrinsicGas = gasUsed - executionGas;
+		if (traceWalker.firstStepGas != null) {
+			intrinsicGas = transaction.getGas().longValue() - traceWalker.firstStepGas;
+		}
+		// The gas used reported by the node is net of the refund, unlike the gas consumed by the steps.
+		gasProfile.addTransaction(gasUsed, Math.max(0, intrinsicGas + executionGas - gasUsed));
+		if (intrinsicGas > 0) {
+			gasProfile.addStep(rootLabel, INTRINSIC_PSEUDO_OPCODE, intrinsicGas);
+		}
+		log.debug("Transaction {} profiled: {} steps.", transactionHash, traceSummary.getStepsCount());
+	}
+
+	private String calleeLabel(final StructLog callStep) {
+		if (CREATE_OPCODES.contains(callStep.getOp())) {
+			return CREATE_LABEL;
+		}
+		final List<String> stack = callStep.getStack();
+		if (stack == null || !CALL_OPCODES.contains(callStep.getOp())) {
+			return callStep.getOp();
+		}
+		final String address = "0x" + StringUtils.right(Numeric.cleanHexPrefix(stack.get(stack.size() - 2)),
+			ADDRESS_HEX_LENGTH);
+		int argsOffsetPosition = CALL_ARGS_OFFSET_POSITION;
+		if ("DELEGATECALL".equals(callStep.getOp()) || "STATICCALL".equals(callStep.getOp())) {
+			argsOffsetPosition = STATIC_CALL_ARGS_OFFSET_POSITION;
+		}
+		String selector = null;
+		if (callStep.getMemory() != null) {
+			final int argsOffset = Numeric.toBigInt(stack.get(stack.size() - argsOffsetPosition)).intValue();
+			final int argsLength = Numeric.toBigInt(stack.get(stack.size() - argsOffsetPosition - 1)).intValue();
+			selector = readSelector(callStep.getMemory(), argsOffset, argsLength);
+		}
+		return label(address, selector);
+	}
+
+	private String selector(final String inputData) {
+		if (!this.selectorsResolution || inputData == null || inputData.length() < SELECTOR_HEX_LENGTH) {
+			return null;
+		}
+		return inputData.substring(0, SELECTOR_HEX_LENGTH);
+	}
+
+	private String readSelector(final List<String> memory, final int argsOffset, final int argsLength) {
+		final int wordIndex = argsOffset / WORD_SIZE;
+		if (argsLength < SELECTOR_HEX_LENGTH / 2 || wordIndex >= memory.size()) {
+			return null;
+		}
+		final StringBuilder words = new StringBuilder(Numeric.cleanHexPrefix(memory.get(wordIndex)));
+		if (wordIndex + 1 < memory.size()) {
+			words.append(Numeric.cleanHexPrefix(memory.get(wordIndex + 1)));
+		}
+		final int start = (argsOffset % WORD_SIZE) * 2;
+		return selector(words.substring(Math.min(start, words.length())));
+	}
+
+	private static String label(final String address, final String selector) {
+		final String normalizedAddress = address.toLowerCase(Locale.ROOT);
+		if (selector == null) {
+			return normalizedAddress;
+		}
+		return normalizedAddress + ":0x" + selector.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * A call frame being executed.
+	 */
+	private static final class Frame {
+
+		private final String label;
+		private final String stack;
+		private StructLog pendingStep;
+		private long selfGas;
+		private long nestedGas;
+
+		private Frame(final String label, final String stack) {
+			this.label = label;
+			this.stack = stack;
+		}
+
+	}
+
+	/**
+	 * The consumer of the steps of a trace, tracking the stack of call frames and attributing the gas of each step to
+	 * the frame executing it.
+	 */
+	private final class TraceWalker implements Consumer<StructLog> {
+
+		private final GasProfile gasProfile;
+		private final Deque<Frame> frames = new ArrayDeque<>();
+		private long executionGas;
+		private Integer rootDepth;
+		private Long firstStepGas;
+
+		private TraceWalker(final GasProfile gasProfile, final String rootLabel) {
+			this.gasProfile = gasProfile;
+			this.frames.push(new Frame(rootLabel, rootLabel));
+		}
+
+		@Override
+		public void accept(final StructLog step) {
+			// The depth of the transaction itself depends on the node (0 for Ganache, 1 for geth): the depths are
+			// normalized so that the first step is at depth 1, the number of frames of the transaction.
+			if (this.rootDepth == null) {
+				this.rootDepth = step.getDepth();
+				this.firstStepGas = step.getGas();
+			}
+			final int depth = step.getDepth() - this.rootDepth + 1;
+			while (this.frames.size() > Math.max(1, depth)) {
+				final long calleeGas = closeFrame();
+				final Frame caller = this.frames.peek();
+				if (caller.pendingStep != null) {
+					record(caller, caller.pendingStep, caller.pendingStep.getGas() - step.getGas() - calleeGas);
+					caller.pendingStep = null;
+				}
+			}
+			final Frame currentFrame = this.frames.peek();
+			if (depth > this.frames.size() && currentFrame.pendingStep != null) {
+				// The pending call step of the caller is recorded when the callee returns.
+				final String label = calleeLabel(currentFrame.pendingStep);
+				this.frames.push(new Frame(label, currentFrame.stack + STACK_SEPARATOR + label));
+			} else if (currentFrame.pendingStep != null) {
+				record(currentFrame, currentFrame.pendingStep,
+					currentFrame.pendingStep.getGas() - step.getGas());
+			}
+			this.frames.peek().pendingStep = step;
+		}
+
+		/**
+		 * Closes all the frames still open at the end of the trace.
+		 *
+		 * @return The gas consumed by all the steps of the trace.
+		 */
+		private long finish() {
+			while (!this.frames.isEmpty()) {
+				final long calleeGas = closeFrame();
+				final Frame caller = this.frames.peek();
+				// The actual cost of a call interrupted by the end of the trace is unknown.
+				if (caller != null && caller.pendingStep != null) {
+					record(caller, caller.pendingStep, 0);
+					caller.pendingStep = null;
+				}
+				if (caller == null) {
+					this.executionGas = calleeGas;
+				}
+			}
+			return this.executionGas;
+		}
+
+		private long closeFrame() {
+			final Frame frame = this.frames.pop();
+			if (frame.pendingStep != null) {
+				record(frame, frame.pendingStep, frame.pendingStep.getGasCost());
+			}
+			final long inclusiveGas = frame.selfGas + frame.nestedGas;
+			this.gasProfile.addFrame(frame.label, frame.selfGas, inclusiveGas);
+			if (!this.frames.isEmpty()) {
+				this.frames.peek().nestedGas += inclusiveGas;
+			}
+			return inclusiveGas;
+		}
+
+		private void record(final Frame frame, final StructLog step, final long gas) {
+			final long consumedGas = Math.max(0, gas);
+			frame.selfGas += consumedGas;
+			this.gasProfile.addStep(frame.stack, step.getOp(), consumedGas);
+		}
+
+	}
+
+}
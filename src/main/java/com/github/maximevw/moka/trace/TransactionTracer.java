@@ -0,0 +1,172 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.trace;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.entities.StructLog;
+import com.github.maximevw.moka.entities.TraceOptions;
+import com.github.maximevw.moka.entities.TraceSummary;
+import org.web3j.protocol.ObjectMapperFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A client of the method {@code debug_traceTransaction} streaming the steps of the trace to a consumer while the
+ * response is received, instead of materializing the whole trace (which may weigh hundreds of megabytes for complex
+ * transactions).
+ * <p>
+ *     The response is parsed incrementally with the Jackson streaming API: only the step being parsed is held in
+ *     memory, so the memory usage does not depend on the size of the trace. This is especially efficient when Ganache
+ *     sends large responses in chunks (see {@link GanacheContainer#withServerChunkSize(long)}), since the parsing
+ *     starts with the first received chunk.
+ * </p>
+ *
+ * @see GanacheContainer#traceTransaction(String, TraceOptions, Consumer)
+ */
+public class TransactionTracer {
+
+	private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+		.version(HttpClient.Version.HTTP_1_1)
+		.build();
+	private static final int HTTP_STATUS_OK = 200;
+	private static final String RESULT_FIELD = "result";
+
+	private final URI nodeUri;
+	private final ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param nodeUri The URI of the JSON-RPC endpoint of Ganache.
+	 */
+	public TransactionTracer(final String nodeUri) {
+		this.nodeUri = URI.create(nodeUri);
+	}
+
+	/**
+	 * Traces a transaction, streaming its steps to a consumer.
+	 *
+	 * @param transactionHash The hash of the transaction to trace.
+	 * @param options		  The options of the trace.
+	 * @param stepConsumer	  The consumer of the steps, called in the order of their execution. The trace is
+	 *                        aborted if the consumer throws an exception.
+	 * @return The summary of the trace.
+	 * @throws IllegalStateException when the transaction cannot be traced.
+	 */
+	public TraceSummary trace(final String transactionHash, final TraceOptions options,
+							  final Consumer<StructLog> stepConsumer) {
+		final String errorMessage = "Unable to trace the transaction " + transactionHash + ".";
+		try {
+			final HttpRequest request = HttpRequest.newBuilder(this.nodeUri)
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(buildRequestBody(transactionHash, options)))
+				.build();
+			final HttpResponse<InputStream> response = HTTP_CLIENT.send(request,
+				HttpResponse.BodyHandlers.ofInputStream());
+			try (InputStream body = response.body();
+				 JsonParser parser = this.objectMapper.getFactory().createParser(body)) {
+				if (response.statusCode() != HTTP_STATUS_OK) {
+					throw new IllegalStateException(errorMessage + " HTTP status: " + response.statusCode());
+				}
+				return parseResponse(parser, stepConsumer);
+			}
+		} catch (final IOException ex) {
+			throw new IllegalStateException(errorMessage, ex);
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(errorMessage, ex);
+		}
+	}
+
+	private String buildRequestBody(final String transactionHash, final TraceOptions options) throws IOException {
+		final Map<String, Boolean> traceConfig = Map.of(
+			"disableStack", options.isDisableStack(),
+			"disableMemory", options.isDisableMemory(),
+			"disableStorage", options.isDisableStorage());
+		return this.objectMapper.writeValueAsString(Map.of(
+			"jsonrpc", "2.0",
+			"id", 1,
+			"method", "debug_traceTransaction",
+			"params", List.of(transactionHash, traceConfig)));
+	}
+
+	private TraceSummary parseResponse(final JsonParser parser, final Consumer<StructLog> stepConsumer)
+		throws IOException {
+		expectToken(parser.nextToken(), JsonToken.START_OBJECT);
+		TraceSummary summary = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final String fieldName = parser.getCurrentName();
+			parser.nextToken();
+			if (RESULT_FIELD.equals(fieldName)) {
+				summary = parseResult(parser, stepConsumer);
+			} else if ("error".equals(fieldName)) {
+				final JsonNode error = this.objectMapper.readTree(parser);
+				throw new IllegalStateException("Ganache returned an error: " + error.path("message").asText());
+			} else {
+				parser.skipChildren();
+			}
+		}
+		if (summary == null) {
+			throw new IllegalStateException("The response of debug_traceTransaction has no result.");
+		}
+		return summary;
+	}
+
+	private TraceSummary parseResult(final JsonParser parser, final Consumer<StructLog> stepConsumer)
+		throws IOException {
+		expectToken(parser.currentToken(), JsonToken.START_OBJECT);
+		final TraceSummary.TraceSummaryBuilder summary = TraceSummary.builder();
+		long stepsCount = 0;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final String fieldName = parser.getCurrentName();
+			parser.nextToken();
+			switch (fieldName) {
+				case "gas":
+					summary.gas(parser.getValueAsLong());
+					break;
+				case "failed":
+					summary.failed(parser.getValueAsBoolean());
+					break;
+				case "returnValue":
+					summary.returnValue(parser.getValueAsString());
+					break;
+				case "structLogs":
+					expectToken(parser.currentToken(), JsonToken.START_ARRAY);
+					while (parser.nextToken() != JsonToken.END_ARRAY) {
+						stepConsumer.accept(this.objectMapper.readValue(parser, StructLog.class));
+						stepsCount++;
+					}
+					break;
+				default:
+					parser.skipChildren();
+			}
+		}
+		return summary.stepsCount(stepsCount).build();
+	}
+
+	private static void expectToken(final JsonToken actualToken, final JsonToken expectedToken) {
+		if (actualToken != expectedToken) {
+			throw new IllegalStateException("Unexpected token in the response of debug_traceTransaction: "
+				+ actualToken + " instead of " + expectedToken + ".");
+		}
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.tuning;
+
+import com.github.dockerjava.api.command.CreateContainerCmd;
+import com.github.maximevw.moka.GanacheContainer;
+import lombok.Builder;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The tuning of the resources of a Ganache container: in-memory database, Node.js heap sizes, and CPU and memory
+ * limits.
+ * <p>
+ *     Each setting is optional: a {@code null} value keeps the default behaviour of the container.
+ * </p>
+ *
+ * @see GanacheContainer#withTuning(ContainerTuning)
+ */
+@Getter
+public class ContainerTuning {
+
+	private static final String MAX_OLD_SPACE_SIZE_OPTION = "--max-old-space-size=";
+	private static final String MAX_SEMI_SPACE_SIZE_OPTION = "--max-semi-space-size=";
+	private static final long NANO_CPUS_PER_CPU = 1_000_000_000L;
+	private static final String HIGH_THROUGHPUT_TMPFS_SIZE = "2g";
+	private static final int HIGH_THROUGHPUT_HEAP_SIZE_IN_MB = 4096;
+	private static final int HIGH_THROUGHPUT_SEMI_SPACE_SIZE_IN_MB = 64;
+
+	/**
+	 * The maximal size of the tmpfs mounts (for example {@code 512m} or {@code 2g}) storing the chain database and the
+	 * temporary files of Ganache in memory rather than in the overlay filesystem of the container.
+	 * <p>
+	 *     The chain data is lost when the container is stopped, so this setting cannot be combined with
+	 *     {@link GanacheContainer#withDatabase(String)}.
+	 * </p>
+	 */
+	private final String tmpfsSize;
+
+	/**
+	 * The maximal size of the old space of the Node.js process running Ganache in megabytes
+	 * ({@code --max-old-space-size}, passed through the environment variable {@code NODE_OPTIONS}).
+	 * <p>
+	 *     A larger old space avoids out-of-memory failures with large sets of accounts or long-running chains.
+	 * </p>
+	 *
+	 * @see <a href="https://nodejs.org/api/cli.html#node_optionsoptions">Node.js NODE_OPTIONS</a>
+	 */
+	private final Integer maxOldSpaceSizeInMb;
+
+	/**
+	 * The maximal size of a semi-space of the Node.js process running Ganache in megabytes
+	 * ({@code --max-semi-space-size}, passed through the environment variable {@code NODE_OPTIONS}).
+	 * <p>
+	 *     A larger semi-space reduces the frequency of the young generation garbage collections under heavy load.
+	 * </p>
+	 *
+	 * @see <a href="https://nodejs.org/api/cli.html#node_optionsoptions">Node.js NODE_OPTIONS</a>
+	 */
+	private final Integer maxSemiSpaceSizeInMb;
+
+	/**
+	 * The number of CPUs available for the container (for example {@code 1.5}).
+	 */
+	private final Double cpus;
+
+	/**
+	 * The maximal amount of memory available for the container in bytes.
+	 * <p>
+	 *     The swap is disabled by setting the memory and swap limits to the same value, so the container is never
+	 *     slowed down by swapping.
+	 * </p>
+	 */
+	private final Long memoryInBytes;
+
+	@Builder
+	private ContainerTuning(final String tmpfsSize, final Integer maxOldSpaceSizeInMb,
+							final Integer maxSemiSpaceSizeInMb, final Double cpus, final Long memoryInBytes) {
+		if (tmpfsSize != null && StringUtils.isBlank(tmpfsSize)) {
+			throw new IllegalArgumentException("The tmpfs size cannot be blank.");
+		}
+		if (isNotStrictlyPositive(maxOldSpaceSizeInMb) || isNotStrictlyPositive(maxSemiSpaceSizeInMb)) {
+			throw new IllegalArgumentException("The Node.js heap sizes must be strictly positive.");
+		}
+		if (cpus != null && cpus <= 0 || isNotStrictlyPositive(memoryInBytes)) {
+			throw new IllegalArgumentException("The resource limits must be strictly positive.");
+		}
+		this.tmpfsSize = tmpfsSize;
+		this.maxOldSpaceSizeInMb = maxOldSpaceSizeInMb;
+		this.maxSemiSpaceSizeInMb = maxSemiSpaceSizeInMb;
+		this.cpus = cpus;
+		this.memoryInBytes = memoryInBytes;
+	}
+
+	/**
+	 * Gets a preset of settings tuned for test suites sending a high volume of requests to Ganache: in-memory
+	 * database and enlarged Node.js heap.
+	 *
+	 * @return The high throughput tuning.
+	 */
+	public static ContainerTuning highThroughput() {
+		return ContainerTuning.builder()
+			.tmpfsSize(HIGH_THROUGHPUT_TMPFS_SIZE)
+			.maxOldSpaceSizeInMb(HIGH_THROUGHPUT_HEAP_SIZE_IN_MB)
+			.maxSemiSpaceSizeInMb(HIGH_THROUGHPUT_SEMI_SPACE_SIZE_IN_MB)
+			.build();
+	}
+
+	/**
+	 * Gets the options of the tmpfs mounts storing the database in memory.
+	 *
+	 * @return The tmpfs mount options or {@code null} if the database is not stored in memory.
+	 */
+	public String getTmpfsOptions() {
+		if (this.tmpfsSize == null) {
+			return null;
+		}
+		return "rw,mode=1777,size=".concat(this.tmpfsSize);
+	}
+
+	/**
+	 * Gets the options of the Node.js process running Ganache, to pass through the environment variable
+	 * {@code NODE_OPTIONS}.
+	 *
+	 * @return The Node.js options separated by spaces (empty if no heap size is set).
+	 */
+	public String getNodeOptions() {
+		final List<String> nodeOptions = new ArrayList<>();
+		if (this.maxOldSpaceSizeInMb != null) {
+			nodeOptions.add(MAX_OLD_SPACE_SIZE_OPTION + this.maxOldSpaceSizeInMb);
+		}
+		if (this.maxSemiSpaceSizeInMb != null) {
+			nodeOptions.add(MAX_SEMI_SPACE_SIZE_OPTION + this.maxSemiSpaceSizeInMb);
+		}
+		return String.join(StringUtils.SPACE, nodeOptions);
+	}
+
+	/**
+	 * Applies the CPU and memory limits to the command creating the container.
+	 *
+	 * @param createContainerCmd The command creating the container.
+	 */
+	public void applyResourceLimits(final CreateContainerCmd createContainerCmd) {
+		if (this.cpus != null) {
+			createContainerCmd.getHostConfig().withNanoCPUs(Math.round(this.cpus * NANO_CPUS_PER_CPU));
+		}
+		if (this.memoryInBytes != null) {
+			createContainerCmd.getHostConfig()
+				.withMemory(this.memoryInBytes)
+				.withMemorySwap(this.memoryInBytes);
+		}
+	}
+
+	private static boolean isNotStrictlyPositive(final Number value) {
+		return value != null && value.longValue() <= 0;
+	}
+
+}
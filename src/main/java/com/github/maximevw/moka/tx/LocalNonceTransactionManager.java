@@ -0,0 +1,168 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.tx;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.web3j.crypto.Credentials;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.tx.RawTransactionManager;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A transaction manager signing the transactions locally and tracking the nonce of the sender locally, so it can be
+ * shared by several threads sending transactions concurrently from the same account.
+ * <p>
+ *     Unlike {@link RawTransactionManager}, which calls {@code eth_getTransactionCount} before each transaction,
+ *     the nonces are reserved atomically from a local counter, synchronized with the pending transactions count of
+ *     the sender only when needed: before the first transaction and after a transaction has been rejected. When
+ *     Ganache rejects a transaction because of its nonce (for example when other transactions have been sent from
+ *     the same account with another transaction manager), the nonce is resynchronized and the transaction is sent
+ *     once again. When a transaction is rejected for another reason, the rejection is returned as is, and the nonce
+ *     is resynchronized before the next transaction to fill the gap left by the rejected one.<br>
+ *     The resynchronization waits for the transactions being sent concurrently to be submitted, so that the pending
+ *     transactions count includes their nonces and no nonce is reserved twice.
+ * </p>
+ */
+@Slf4j(topic = "GanacheContainer")
+public class LocalNonceTransactionManager extends RawTransactionManager {
+
+	private static final long UNSYNCHRONIZED = -1;
+	private static final String NONCE_ERROR_KEYWORD = "nonce";
+
+	private final AtomicLong nextNonce = new AtomicLong(UNSYNCHRONIZED);
+	// Held in read mode by the submissions in flight, and in write mode to reset the nonce counter.
+	private final ReadWriteLock submissionLock = new ReentrantReadWriteLock();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param web3j		  The Web3j instance used to send the transactions.
+	 * @param credentials The credentials of the sender.
+	 * @param chainId	  The identifier of the chain.
+	 */
+	public LocalNonceTransactionManager(final Web3j web3j, final Credentials credentials, final long chainId) {
+		super(web3j, credentials, chainId);
+	}
+
+	/**
+	 * Reserves the next nonce of the sender. The local counter is synchronized with the pending transactions count of
+	 * the sender first if needed.
+	 *
+	 * @return The reserved nonce.
+	 * @throws IOException when the pending transactions count of the sender cannot be retrieved.
+	 */
+	@Override
+	protected BigInteger getNonce() throws IOException {
+		while (true) {
+			final long nonce = this.nextNonce.get();
+			if (nonce == UNSYNCHRONIZED) {
+				synchronizeNonce();
+			} else if (this.nextNonce.compareAndSet(nonce, nonce + 1)) {
+				return BigInteger.valueOf(nonce);
+			}
+		}
+	}
+
+	@Override
+	public EthSendTransaction sendTransaction(final BigInteger gasPrice, final BigInteger gasLimit, final String to,
+											  final String data, final BigInteger value, final boolean constructor)
+		throws IOException {
+		return sendWithNonceRecovery(() -> super.sendTransaction(gasPrice, gasLimit, to, data, value, constructor));
+	}
+
+	@Override
+	public EthSendTransaction sendEIP1559Transaction(final long chainId, final BigInteger maxPriorityFeePerGas,
+													 final BigInteger maxFeePerGas, final BigInteger gasLimit,
+													 final String to, final String data, final BigInteger value,
+													 final boolean constructor) throws IOException {
+		return sendWithNonceRecovery(() -> super.sendEIP1559Transaction(chainId, maxPriorityFeePerGas, maxFeePerGas,
+			gasLimit, to, data, value, constructor));
+	}
+
+	/**
+	 * Forces the synchronization of the local nonce counter with the pending transactions count of the sender before
+	 * the next transaction. This waits for the transactions being sent by other threads to be submitted.
+	 */
+	public void resetNonce() {
+		final Lock resetLock = this.submissionLock.writeLock();
+		resetLock.lock();
+		try {
+			this.nextNonce.set(UNSYNCHRONIZED);
+		} finally {
+			resetLock.unlock();
+		}
+	}
+
+	private synchronized void synchronizeNonce() throws IOException {
+		if (this.nextNonce.get() == UNSYNCHRONIZED) {
+			this.nextNonce.compareAndSet(UNSYNCHRONIZED, super.getNonce().longValue());
+		}
+	}
+
+	private EthSendTransaction sendWithNonceRecovery(final Submission submission) throws IOException {
+		EthSendTransaction response = submitOrReset(submission);
+		if (response.hasError() && StringUtils.containsIgnoreCase(response.getError().getMessage(),
+			NONCE_ERROR_KEYWORD)) {
+			log.debug("Transaction from {} rejected because of its nonce, resending it: {}", getFromAddress(),
+				response.getError().getMessage());
+			resetNonce();
+			response = submitOrReset(submission);
+		}
+		if (response.hasError()) {
+			// The nonce reserved by the rejected transaction is not consumed: resynchronize before the next one.
+			resetNonce();
+		}
+		return response;
+	}
+
+	private EthSendTransaction submitOrReset(final Submission submission) throws IOException {
+		try {
+			return submit(submission);
+		} catch (final IOException ex) {
+			resetNonce();
+			throw ex;
+		}
+	}
+
+	private EthSendTransaction submit(final Submission submission) throws IOException {
+		// The nonce counter cannot be reset while the nonce is reserved and the transaction submitted.
+		final Lock inFlightLock = this.submissionLock.readLock();
+		inFlightLock.lock();
+		try {
+			return submission.submit();
+		} finally {
+			inFlightLock.unlock();
+		}
+	}
+
+	/**
+	 * The submission of a transaction.
+	 */
+	@FunctionalInterface
+	private interface Submission {
+
+		/**
+		 * Submits the transaction.
+		 *
+		 * @return The response of the node.
+		 * @throws IOException when the transaction cannot be sent.
+		 */
+		EthSendTransaction submit() throws IOException;
+
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ *  Copyright (c) 2023 Maxime Wiewiora
+ *
+ *  Use of this source code is governed by an MIT-style
+ *  license that can be found in the LICENSE file or at
+ *  https://opensource.org/licenses/MIT.
+ */
+
+package com.github.maximevw.moka.tx;
+
+import com.github.maximevw.moka.rpc.GanacheJsonRpc;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.TransactionEncoder;
+import org.web3j.utils.Numeric;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A service signing large batches of raw transactions in parallel across the available cores, so the client-side
+ * signing is not the bottleneck of bulk submissions.
+ * <p>
+ *     The batch is recursively split into chunks signed by the tasks of a fork/join pool. The signed transactions
+ *     can then be submitted in JSON-RPC batches with {@link GanacheJsonRpc#sendRawTransactions(List)}.
+ * </p>
+ */
+public class ParallelTransactionSigner {
+
+	private static final int DEFAULT_CHUNK_SIZE = 64;
+
+	private final ForkJoinPool forkJoinPool;
+	private final int chunkSize;
+
+	/**
+	 * Constructor using the common fork/join pool and the default chunk size (64 transactions).
+	 */
+	public ParallelTransactionSigner() {
+		this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param forkJoinPool The fork/join pool executing the signing tasks.
+	 * @param chunkSize	   The maximal number of transactions signed by a single task.
+	 * @throws IllegalArgumentException when the pool is {@code null} or the chunk size is not strictly positive.
+	 */
+	public ParallelTransactionSigner(final ForkJoinPool forkJoinPool, final int chunkSize) {
+		if (forkJoinPool == null) {
+			throw new IllegalArgumentException("The fork/join pool cannot be null.");
+		} else if (chunkSize <= 0) {
+			throw new IllegalArgumentException("The chunk size must be strictly positive.");
+		}
+		this.forkJoinPool = forkJoinPool;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Signs raw transactions sent by the same account.
+	 *
+	 * @param transactions The transactions to sign. The nonces must already be set.
+	 * @param credentials  The credentials of the sender.
+	 * @param chainId	   The identifier of the chain (EIP-155).
+	 * @return The signed transactions, encoded as hexadecimal strings ready to be sent with
+	 * 		   {@code eth_sendRawTransaction}, in the same order as the raw transactions.
+	 */
+	public List<String> sign(final List<RawTransaction> transactions, final Credentials credentials,
+							 final long chainId) {
+		final String[] signedTransactions = new String[transactions.size()];
+		this.forkJoinPool.invoke(new SigningTask(transactions, credentials, chainId, signedTransactions, 0,
+			transactions.size()));
+		return Arrays.asList(signedTransactions);
+	}
+
+	/**
+	 * The task signing a range of transactions, split in two sub-tasks when the range exceeds the chunk size.
+	 */
+	private final class SigningTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient List<RawTransaction> transactions;
+		private final transient Credentials credentials;
+		private final long chainId;
+		private final String[] signedTransactions;
+		private final int from;
+		private final int to;
+
+		private SigningTask(final List<RawTransaction> transactions, final Credentials credentials, final long chainId,
+							final String[] signedTransactions, final int from, final int to) {
+			this.transactions = transactions;
+			this.credentials = credentials;
+			this.chainId = chainId;
+			this.signedTransactions = signedTransactions;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= ParallelTransactionSigner.this.chunkSize) {
+				for (int i = this.from; i < this.to; i++) {
+					this.signedTransactions[i] = Numeric.toHexString(
+						TransactionEncoder.signMessage(this.transactions.get(i), this.chainId, this.credentials));
+				}
+			} else {
+				final int middle = (this.from + this.to) >>> 1;
+				invokeAll(new SigningTask(this.transactions, this.credentials, this.chainId, this.signedTransactions,
+						this.from, middle),
+					new SigningTask(this.transactions, this.credentials, this.chainId, this.signedTransactions,
+						middle, this.to));
+			}
+		}
+
+	}
+
+}
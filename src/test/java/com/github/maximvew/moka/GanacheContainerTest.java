@@ -1,4 +1,149 @@
 package com.github.maximvew.moka;
 
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.entities.TestingAccount;
+import com.github.maximevw.moka.fixtures.ContractFixtures;
+import com.github.maximevw.moka.gas.GasMeter;
+import com.github.maximevw.moka.trace.FrameGas;
+import com.github.maximevw.moka.trace.GasProfile;
+import com.github.maximevw.moka.trace.GasProfiler;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.Locale;
+
+import static com.github.maximvew.moka.GanacheTestSupport.GAS_PRICE;
+import static com.github.maximvew.moka.GanacheTestSupport.awaitReceipt;
+import static com.github.maximvew.moka.GanacheTestSupport.send;
+import static com.github.maximvew.moka.GanacheTestSupport.sharedGanache;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 public class GanacheContainerTest {
+
+	// Runtime code storing 1 in the slot 0: PUSH1 1, PUSH1 0, SSTORE, STOP.
+	private static final String STORING_RUNTIME = "600160005500";
+	// Runtime code setting the slot 0 then clearing it, which is refunded: PUSH1 1, PUSH1 0, SSTORE, PUSH1 0, PUSH1 0,
+	// SSTORE, STOP.
+	private static final String CLEARING_RUNTIME = "6001600055600060005500";
+	private static final BigInteger GAS_LIMIT = BigInteger.valueOf(1_000_000);
+	private static final long INTRINSIC_GAS = 21_000;
+	private static final long SSTORE_SET_GAS = 20_000;
+	private static final DefaultBlockParameterName LATEST = DefaultBlockParameterName.LATEST;
+
+	private static GanacheContainer<?> ganache;
+
+	@BeforeAll
+	static void initGanache() {
+		ganache = sharedGanache();
+	}
+
+	@Test
+	void gasProfilerAttributesTheGasOfNestedCallsToTheirFrames() throws Exception {
+		final TestingAccount sender = ganache.getTestingAccount(0);
+		final String callee = deploy(sender, STORING_RUNTIME);
+		final String caller = deploy(sender, callingRuntime(callee));
+
+		final TransactionReceipt receipt = sendAndWait(sender, caller, "0x");
+		final GasProfile profile = new GasProfiler(ganache).profile(receipt.getTransactionHash());
+
+		final FrameGas calleeFrame = profile.getGasByFrame().get(callee.toLowerCase(Locale.ROOT));
+		final FrameGas callerFrame = profile.getGasByFrame().get(caller.toLowerCase(Locale.ROOT));
+		assertNotNull(calleeFrame, "The nested call must have its own frame.");
+		assertNotNull(callerFrame);
+		assertEquals(1, calleeFrame.getCalls());
+		assertEquals(calleeFrame.getSelfGas(), calleeFrame.getInclusiveGas());
+		assertTrue(calleeFrame.getSelfGas() >= SSTORE_SET_GAS, "The SSTORE belongs to the nested call.");
+		assertTrue(callerFrame.getSelfGas() < SSTORE_SET_GAS, "The caller only pays for its own opcodes.");
+		assertEquals(callerFrame.getSelfGas() + calleeFrame.getInclusiveGas(), callerFrame.getInclusiveGas());
+		assertEquals(receipt.getGasUsed().longValueExact() - INTRINSIC_GAS, callerFrame.getInclusiveGas());
+	}
+
+	@Test
+	void gasProfilerReportsTheRefundSeparately() throws Exception {
+		final TestingAccount sender = ganache.getTestingAccount(0);
+		final String contract = deploy(sender, CLEARING_RUNTIME);
+
+		final TransactionReceipt receipt = sendAndWait(sender, contract, "0x");
+		final GasProfile profile = new GasProfiler(ganache).profile(receipt.getTransactionHash());
+
+		assertEquals(receipt.getGasUsed().longValueExact(), profile.getTotalGas());
+		assertTrue(profile.getRefundedGas() > 0, "Clearing a slot set in the same transaction is refunded.");
+		assertEquals(INTRINSIC_GAS,
+			profile.getCollapsedStacks().get(contract.toLowerCase(Locale.ROOT) + ";[intrinsic]"));
+		assertEquals(profile.getTotalGas() + profile.getRefundedGas(),
+			profile.getCollapsedStacks().values().stream().mapToLong(Long::longValue).sum());
+	}
+
+	@Test
+	void gasMeterSumsTheGasUsedByTheBlocksMinedSinceItsStart() throws Exception {
+		final TestingAccount sender = ganache.getTestingAccount(0);
+		final String callee = deploy(sender, STORING_RUNTIME);
+		final GasMeter gasMeter = new GasMeter(ganache);
+		assertEquals(0, gasMeter.getGasUsed());
+
+		final TransactionReceipt firstReceipt = sendAndWait(sender, callee, "0x");
+		final TransactionReceipt secondReceipt = sendAndWait(ganache.getTestingAccount(1), callee, "0x");
+		assertEquals(firstReceipt.getGasUsed().add(secondReceipt.getGasUsed()).longValueExact(),
+			gasMeter.getGasUsed());
+
+		gasMeter.restart();
+		assertEquals(0, gasMeter.getGasUsed());
+	}
+
+	@Test
+	void forkedContainerReadsTheStateOfItsBaseContainer() throws Exception {
+		final TestingAccount sender = ganache.getTestingAccount(0);
+		final String callee = deploy(sender, STORING_RUNTIME);
+		sendAndWait(sender, callee, "0x");
+
+		try (GanacheContainer<?> forked = new GanacheContainer<>().withForkFrom(ganache)) {
+			forked.start();
+			forked.waitUntilGanacheIsReady();
+			assertEquals(ganache.getWeb3j().ethGetCode(callee, LATEST).send().getCode(),
+				forked.getWeb3j().ethGetCode(callee, LATEST).send().getCode());
+			assertEquals(BigInteger.ONE, Numeric.toBigInt(
+				forked.getWeb3j().ethGetStorageAt(callee, BigInteger.ZERO, LATEST).send().getData()));
+		}
+	}
+
+	@Test
+	void forkFromContainerCannotBeCombinedWithAnotherForkSource() {
+		final GanacheContainer<?> base = new GanacheContainer<>();
+		assertThrows(IllegalStateException.class,
+			() -> new GanacheContainer<>().withForkFrom(base).withForkUrl("http://localhost:8545"));
+		assertThrows(IllegalStateException.class,
+			() -> new GanacheContainer<>().withForkBlockNumber(DefaultBlockParameter.valueOf(BigInteger.TEN))
+				.withForkFrom(base));
+	}
+
+	private static String deploy(final TestingAccount deployer, final String runtime) {
+		// Init code returning the runtime code appended to it: PUSH1 <length>, DUP1, PUSH1 0x0b, PUSH1 0, CODECOPY,
+		// PUSH1 0, RETURN.
+		final String initCode = "60" + Numeric.toHexStringNoPrefixZeroPadded(
+			BigInteger.valueOf(runtime.length() / 2), 2) + "80600b6000396000f3";
+		// Each deployment is a new fixture, deployed on top of the previous ones.
+		return ContractFixtures.of(ganache).deployOnce(deployer, initCode + runtime).getContractAddress();
+	}
+
+	private static String callingRuntime(final String callee) {
+		// Calls the callee with all the remaining gas, no value and no data: PUSH1 0 (x5), PUSH20 <callee>, GAS, CALL,
+		// POP, STOP.
+		return "6000600060006000600073" + Numeric.cleanHexPrefix(callee) + "5af15000";
+	}
+
+	private static TransactionReceipt sendAndWait(final TestingAccount sender, final String to, final String data) {
+		// Sent with eth_sendTransaction, so Ganache assigns the nonce even after the fixtures have been reverted.
+		return awaitReceipt(ganache, send(ganache,
+			Transaction.createFunctionCallTransaction(sender.getAddress(), null, GAS_PRICE, GAS_LIMIT, to, data)));
+	}
+
 }
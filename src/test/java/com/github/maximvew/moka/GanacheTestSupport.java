@@ -0,0 +1,139 @@
+package com.github.maximvew.moka;
+
+import com.github.maximevw.moka.GanacheContainer;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Helpers shared by the tests running against a Ganache container.
+ */
+public final class GanacheTestSupport {
+
+	/**
+	 * The gas price of the transactions sent by the tests.
+	 */
+	public static final BigInteger GAS_PRICE = BigInteger.valueOf(20_000_000_000L);
+
+	/**
+	 * The gas limit of a simple ETH transfer.
+	 */
+	public static final BigInteger TRANSFER_GAS_LIMIT = BigInteger.valueOf(21_000);
+
+	/**
+	 * One ETH in WEI.
+	 */
+	public static final BigInteger ONE_ETHER = BigInteger.TEN.pow(18);
+
+	private static final long RECEIPT_TIMEOUT_IN_SECONDS = 10;
+
+	private static GanacheContainer<?> sharedGanache;
+
+	private GanacheTestSupport() {
+		// Private constructor hiding the public default one.
+	}
+
+	/**
+	 * Gets the Ganache container with the default configuration shared by the test classes. It is started at the
+	 * first call and removed by Testcontainers at the end of the test run.
+	 *
+	 * @return The shared Ganache container.
+	 */
+	public static synchronized GanacheContainer<?> sharedGanache() {
+		if (sharedGanache == null) {
+			sharedGanache = startGanache(new GanacheContainer<>());
+		}
+		return sharedGanache;
+	}
+
+	/**
+	 * Starts a Ganache container with a specific configuration and waits until Ganache is ready.
+	 *
+	 * @param ganache The Ganache container.
+	 * @return The started container.
+	 */
+	public static GanacheContainer<?> startGanache(final GanacheContainer<?> ganache) {
+		ganache.start();
+		ganache.waitUntilGanacheIsReady();
+		return ganache;
+	}
+
+	/**
+	 * Sends a transaction with {@code eth_sendTransaction}, so Ganache assigns its nonce, and checks it is accepted.
+	 *
+	 * @param ganache	  The Ganache container.
+	 * @param transaction The transaction, whose sender must be unlocked in Ganache.
+	 * @return The transaction hash.
+	 */
+	public static String send(final GanacheContainer<?> ganache, final Transaction transaction) {
+		try {
+			return checkSent(ganache.getWeb3j().ethSendTransaction(transaction).send());
+		} catch (final IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Sends ETH with {@code eth_sendTransaction} and checks the transaction is accepted.
+	 *
+	 * @param ganache The Ganache container.
+	 * @param from	  The address of the sender, which must be unlocked in Ganache.
+	 * @param to	  The address of the recipient.
+	 * @param value	  The transferred value in WEI.
+	 * @return The transaction hash.
+	 */
+	public static String transfer(final GanacheContainer<?> ganache, final String from, final String to,
+								  final BigInteger value) {
+		return send(ganache, Transaction.createEtherTransaction(from, null, GAS_PRICE, TRANSFER_GAS_LIMIT, to,
+			value));
+	}
+
+	/**
+	 * Checks a transaction has been accepted.
+	 *
+	 * @param response The response to the submission of the transaction.
+	 * @return The transaction hash.
+	 */
+	public static String checkSent(final EthSendTransaction response) {
+		assertFalse(response.hasError(), () -> response.getError().getMessage());
+		return response.getTransactionHash();
+	}
+
+	/**
+	 * Waits for the receipt of a transaction.
+	 *
+	 * @param ganache		  The Ganache container.
+	 * @param transactionHash The transaction hash.
+	 * @return The receipt.
+	 */
+	public static TransactionReceipt awaitReceipt(final GanacheContainer<?> ganache, final String transactionHash) {
+		return awaitReceipts(ganache, List.of(transactionHash)).get(0);
+	}
+
+	/**
+	 * Waits for the receipts of several transactions.
+	 *
+	 * @param ganache			The Ganache container.
+	 * @param transactionHashes The transactions hashes.
+	 * @return The receipts, in the same order as the hashes.
+	 */
+	public static List<TransactionReceipt> awaitReceipts(final GanacheContainer<?> ganache,
+														 final List<String> transactionHashes) {
+		final Map<String, CompletableFuture<TransactionReceipt>> receipts = ganache.awaitReceipts(transactionHashes);
+		return transactionHashes.stream()
+			.map(hash -> receipts.get(hash).orTimeout(RECEIPT_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS).join())
+			.collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.github.maximvew.moka.accounts;
+
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.accounts.RuntimeAccounts;
+import com.github.maximevw.moka.entities.InitAccountData;
+import com.github.maximevw.moka.entities.TestingAccount;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.Keys;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+
+import static com.github.maximvew.moka.GanacheTestSupport.ONE_ETHER;
+import static com.github.maximvew.moka.GanacheTestSupport.awaitReceipt;
+import static com.github.maximvew.moka.GanacheTestSupport.sharedGanache;
+import static com.github.maximvew.moka.GanacheTestSupport.transfer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RuntimeAccountsTest {
+
+	private static GanacheContainer<?> ganache;
+	private static RuntimeAccounts runtimeAccounts;
+
+	@BeforeAll
+	static void initRuntimeAccounts() {
+		ganache = sharedGanache();
+		runtimeAccounts = new RuntimeAccounts(ganache);
+	}
+
+	@Test
+	void importedAccountsAreFundedUnlockedAndRegisteredWithTheirAliases() throws Exception {
+		final List<InitAccountData> accounts = List.of(
+			new InitAccountData(generatePrivateKey(), ONE_ETHER),
+			new InitAccountData(generatePrivateKey(), ONE_ETHER.multiply(BigInteger.TWO)));
+
+		// Less aliases than accounts: the second account has no alias.
+		final List<TestingAccount> imported = runtimeAccounts.importTestingAccounts(accounts,
+			Collections.singletonList("alice"));
+
+		assertEquals(2, imported.size());
+		for (int i = 0; i < accounts.size(); i++) {
+			final String expectedAddress = Credentials.create(accounts.get(i).getPrivateKey()).getAddress();
+			assertTrue(expectedAddress.equalsIgnoreCase(imported.get(i).getAddress()));
+			assertEquals(accounts.get(i).getBalanceInWei(), getBalance(imported.get(i).getAddress()));
+			assertTrue(ganache.getTestingAccounts().containsValue(imported.get(i)));
+		}
+		assertSame(imported.get(0), ganache.getTestingAccount("alice"));
+		assertNull(imported.get(1).getAlias());
+		// The accounts are unlocked: Ganache signs their transactions.
+		assertSentBy(imported.get(1).getAddress());
+	}
+
+	@Test
+	void createdAccountIsFundedWithAGeneratedKey() throws Exception {
+		final TestingAccount created = runtimeAccounts.createTestingAccount("bob", ONE_ETHER);
+
+		assertNotNull(created.getPrivateKey());
+		assertTrue(Credentials.create(created.getPrivateKey()).getAddress().equalsIgnoreCase(created.getAddress()));
+		assertEquals(ONE_ETHER, getBalance(created.getAddress()));
+		assertSame(created, ganache.getTestingAccount("bob"));
+	}
+
+	@Test
+	void addedAccountCanSendTransactionsWithoutItsPrivateKey() throws Exception {
+		final String address = Keys.toChecksumAddress(Keys.getAddress(Keys.createEcKeyPair()));
+
+		final TestingAccount added = runtimeAccounts.addTestingAccount(address, "whale", ONE_ETHER);
+
+		assertNull(added.getPrivateKey());
+		assertEquals(ONE_ETHER, getBalance(address));
+		assertSame(added, ganache.getTestingAccount("whale"));
+		assertSentBy(address);
+	}
+
+	private static String generatePrivateKey() throws Exception {
+		return Numeric.toHexStringWithPrefixZeroPadded(Keys.createEcKeyPair().getPrivateKey(),
+			Keys.PRIVATE_KEY_LENGTH_IN_HEX);
+	}
+
+	private static BigInteger getBalance(final String address) throws Exception {
+		return ganache.getWeb3j().ethGetBalance(address, DefaultBlockParameterName.LATEST).send().getBalance();
+	}
+
+	private static void assertSentBy(final String from) {
+		final String hash = transfer(ganache, from, ganache.getTestingAccount(0).getAddress(), BigInteger.ONE);
+		assertTrue(awaitReceipt(ganache, hash).isStatusOK());
+	}
+
+}
@@ -1,4 +1,135 @@
 package com.github.maximvew.moka.asserts;
 
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.entities.BalanceChange;
+import com.github.maximevw.moka.entities.TestingAccount;
+import com.github.maximevw.moka.fixtures.ContractFixtures;
+import com.github.maximevw.moka.tokens.TokenBalances;
+import com.github.maximvew.moka.GanacheTestSupport;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+import org.web3j.crypto.Keys;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.github.maximevw.moka.asserts.BalanceAssertions.assertBalanceChangedByTransactions;
+import static com.github.maximevw.moka.asserts.TokenBalanceAssertions.assertTokenBalanceEquals;
+import static com.github.maximevw.moka.asserts.TokenBalanceAssertions.assertTokenBalancesDecreased;
+import static com.github.maximevw.moka.asserts.TokenBalanceAssertions.assertTokenBalancesIncreased;
+import static com.github.maximevw.moka.asserts.TokenBalanceAssertions.assertTokenBalancesStable;
+import static com.github.maximevw.moka.asserts.VariationMatchers.atLeast;
+import static com.github.maximevw.moka.asserts.VariationMatchers.atMost;
+import static com.github.maximvew.moka.GanacheTestSupport.GAS_PRICE;
+import static com.github.maximvew.moka.GanacheTestSupport.ONE_ETHER;
+import static com.github.maximvew.moka.GanacheTestSupport.awaitReceipt;
+import static com.github.maximvew.moka.GanacheTestSupport.sharedGanache;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 public class BalanceAssertionsTest {
+
+	// Init code returning a runtime code whose balanceOf(address) returns the ETH balance of the address: PUSH1 4,
+	// CALLDATALOAD, BALANCE, PUSH1 0, MSTORE, PUSH1 32, PUSH1 0, RETURN.
+	private static final String ETH_BALANCE_TOKEN = "600c80600b6000396000f3" + "6004353160005260206000f3";
+
+	private static GanacheContainer<?> ganache;
+
+	@BeforeAll
+	static void initGanache() {
+		ganache = sharedGanache();
+	}
+
+	@Test
+	void balanceChangeIncludesTheTransferredValuesAndTheGasFees() {
+		final TestingAccount sender = ganache.getTestingAccount(0);
+		final TestingAccount recipient = ganache.getTestingAccount(1);
+		final List<TransactionReceipt> receipts = ganache.inSingleBlock(() -> {
+			transfer(sender, recipient, ONE_ETHER);
+			transfer(recipient, sender, ONE_ETHER.shiftRight(1));
+		});
+		final List<String> hashes = List.of(receipts.get(0).getTransactionHash(),
+			receipts.get(1).getTransactionHash());
+
+		final BalanceChange senderChange = sender.getBalanceChange(hashes);
+		assertEquals(senderChange.getActualVariation(), senderChange.getExpectedVariation());
+		final TransactionReceipt senderReceipt = receipts.stream()
+			.filter(receipt -> sender.getAddress().equalsIgnoreCase(receipt.getFrom()))
+			.findFirst()
+			.orElseThrow();
+		assertEquals(senderReceipt.getGasUsed().multiply(GAS_PRICE), senderChange.getGasFees());
+		assertEquals(ONE_ETHER.shiftRight(1).negate().subtract(senderChange.getGasFees()),
+			senderChange.getActualVariation());
+		assertBalanceChangedByTransactions(recipient, hashes);
+	}
+
+	@Test
+	void balanceChangeFailsWhenAnotherTransactionInvolvesTheAccount() {
+		final TestingAccount sender = ganache.getTestingAccount(2);
+		final TestingAccount recipient = ganache.getTestingAccount(3);
+		final List<TransactionReceipt> receipts = ganache.inSingleBlock(() -> {
+			transfer(sender, recipient, ONE_ETHER);
+			transfer(sender, ganache.getTestingAccount(4), ONE_ETHER);
+		});
+		final String firstHash = receipts.get(0).getTransactionHash();
+		final String otherHash = receipts.get(1).getTransactionHash();
+
+		final IllegalStateException failure = assertThrows(IllegalStateException.class,
+			() -> sender.getBalanceChange(List.of(firstHash)));
+		assertTrue(failure.getMessage().contains(otherHash), failure.getMessage());
+		// The recipient is not involved in the other transaction.
+		assertBalanceChangedByTransactions(recipient, List.of(firstHash));
+	}
+
+	@Test
+	void balanceChangeIgnoresTheBlocksWithoutTheGivenTransactions() {
+		final TestingAccount sender = ganache.getTestingAccount(7);
+		final TestingAccount recipient = ganache.getTestingAccount(8);
+		final String firstHash = transfer(sender, recipient, ONE_ETHER);
+		awaitReceipt(ganache, firstHash);
+		// Mined in its own block, between the blocks of the given transactions (for example by a concurrent test).
+		awaitReceipt(ganache, transfer(sender, ganache.getTestingAccount(9), ONE_ETHER));
+		final String lastHash = transfer(sender, recipient, ONE_ETHER);
+		awaitReceipt(ganache, lastHash);
+
+		final BalanceChange senderChange = sender.getBalanceChange(List.of(firstHash, lastHash));
+
+		assertEquals(2, senderChange.getBlocks().size());
+		assertEquals(senderChange.getExpectedVariation(), senderChange.getActualVariation());
+		assertEquals(ONE_ETHER.shiftLeft(1).negate().subtract(senderChange.getGasFees()),
+			senderChange.getActualVariation());
+	}
+
+	@Test
+	void tokenBalancesMatchHoldersWhateverTheCaseOfTheirAddresses() {
+		final TestingAccount sender = ganache.getTestingAccount(5);
+		final TestingAccount recipient = ganache.getTestingAccount(6);
+		final String token = ContractFixtures.of(ganache).deployOnce(sender, ETH_BALANCE_TOKEN).getContractAddress();
+		final String checksummedRecipient = Keys.toChecksumAddress(recipient.getAddress());
+		final TokenBalances tokenBalances = TokenBalances.erc20(ganache, token,
+			List.of(Keys.toChecksumAddress(sender.getAddress()), checksummedRecipient));
+		assertTokenBalancesStable(tokenBalances);
+
+		transfer(sender, recipient, ONE_ETHER);
+
+		final String lowercaseRecipient = recipient.getAddress().toLowerCase(Locale.ROOT);
+		assertTokenBalanceEquals(tokenBalances, lowercaseRecipient, recipient.getBalanceInWei());
+		assertTokenBalancesIncreased(tokenBalances, Map.of(checksummedRecipient, atLeast(ONE_ETHER)));
+		final String uppercaseSender = Numeric.prependHexPrefix(
+			Numeric.cleanHexPrefix(sender.getAddress()).toUpperCase(Locale.ROOT));
+		assertTokenBalancesDecreased(tokenBalances, Map.of(uppercaseSender, atLeast(ONE_ETHER)));
+		assertThrows(AssertionFailedError.class,
+			() -> assertTokenBalancesIncreased(tokenBalances, Map.of(lowercaseRecipient, atMost(BigInteger.ONE))));
+	}
+
+	private static String transfer(final TestingAccount from, final TestingAccount to, final BigInteger value) {
+		return GanacheTestSupport.transfer(ganache, from.getAddress(), to.getAddress(), value);
+	}
+
 }
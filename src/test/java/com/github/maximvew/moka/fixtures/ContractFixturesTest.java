@@ -0,0 +1,89 @@
+package com.github.maximvew.moka.fixtures;
+
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.entities.ContractFixture;
+import com.github.maximevw.moka.entities.TestingAccount;
+import com.github.maximevw.moka.fixtures.ContractFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static com.github.maximvew.moka.GanacheTestSupport.awaitReceipt;
+import static com.github.maximvew.moka.GanacheTestSupport.sharedGanache;
+import static com.github.maximvew.moka.GanacheTestSupport.transfer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.web3j.protocol.core.DefaultBlockParameterName.LATEST;
+
+public class ContractFixturesTest {
+
+	// Init code deploying a contract whose runtime code is STOP: PUSH1 0x00, PUSH1 0, MSTORE8, PUSH1 1, PUSH1 0,
+	// RETURN.
+	private static final String STOP_CONTRACT = "0x600060005360016000f3";
+
+	private static GanacheContainer<?> ganache;
+	private static ContractFixtures contractFixtures;
+
+	@BeforeAll
+	static void initFixtures() {
+		ganache = sharedGanache();
+		contractFixtures = ContractFixtures.of(ganache);
+	}
+
+	@AfterEach
+	void releaseFixtures() {
+		contractFixtures.release();
+	}
+
+	@Test
+	void fixturesAreMemoizedPerDeployer() {
+		final ContractFixture fixture = contractFixtures.deployOnce(ganache.getTestingAccount(0), STOP_CONTRACT);
+
+		assertSame(contractFixtures, ContractFixtures.of(ganache));
+		assertSame(fixture, contractFixtures.deployOnce(ganache.getTestingAccount(0), STOP_CONTRACT));
+		final ContractFixture otherDeployerFixture = contractFixtures.deployOnce(ganache.getTestingAccount(1),
+			STOP_CONTRACT);
+		assertNotEquals(fixture.getContractAddress(), otherDeployerFixture.getContractAddress());
+		assertTrue(ganache.getTestingAccount(1).getAddress()
+			.equalsIgnoreCase(otherDeployerFixture.getDeployerAddress()));
+	}
+
+	@Test
+	void requestingAFixtureRevertsTheChangesAndCheckpointsTheAccounts() {
+		final TestingAccount sender = ganache.getTestingAccount(2);
+		contractFixtures.deployOnce(ganache.getTestingAccount(0), STOP_CONTRACT);
+		final BigInteger fixturesBalance = sender.getBalanceInWei();
+		final String hash = transfer(ganache, sender.getAddress(), ganache.getTestingAccount(3).getAddress(),
+			BigInteger.ONE);
+		assertTrue(awaitReceipt(ganache, hash).isStatusOK());
+		sender.checkpoint();
+		assertNotEquals(fixturesBalance, sender.getLastBalance());
+
+		contractFixtures.deployOnce(ganache.getTestingAccount(0), STOP_CONTRACT);
+
+		assertEquals(fixturesBalance, sender.getBalanceInWei());
+		assertEquals(fixturesBalance, sender.getLastBalance());
+	}
+
+	@Test
+	void releasingTheFixturesRevertsTheDeployments() throws Exception {
+		final String contractAddress = contractFixtures.deployOnce(ganache.getTestingAccount(0), STOP_CONTRACT)
+			.getContractAddress();
+		assertEquals("0x00", getCode(contractAddress));
+
+		contractFixtures.release();
+
+		assertEquals("0x", getCode(contractAddress));
+		assertEquals(contractAddress,
+			contractFixtures.deployOnce(ganache.getTestingAccount(0), STOP_CONTRACT).getContractAddress());
+	}
+
+	private static String getCode(final String address) throws Exception {
+		return ganache.getWeb3j().ethGetCode(address, LATEST).send().getCode();
+	}
+
+}
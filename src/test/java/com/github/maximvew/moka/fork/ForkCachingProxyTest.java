@@ -0,0 +1,144 @@
+package com.github.maximvew.moka.fork;
+
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.fork.ForkCachingProxy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+import org.web3j.protocol.http.HttpService;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+
+import static com.github.maximvew.moka.GanacheTestSupport.sharedGanache;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ForkCachingProxyTest {
+
+	private static final DefaultBlockParameter FIRST_BLOCK = DefaultBlockParameter.valueOf(BigInteger.ONE);
+
+	private static GanacheContainer<?> upstream;
+
+	@TempDir
+	Path storeDirectory;
+
+	private ForkCachingProxy proxy;
+	private Web3j proxyClient;
+
+	@BeforeAll
+	static void initUpstream() {
+		upstream = sharedGanache();
+		// The first block must exist, whatever the tests run before on the shared container.
+		upstream.mineBlocks(2);
+	}
+
+	@AfterEach
+	void stopProxy() {
+		if (this.proxyClient != null) {
+			this.proxyClient.shutdown();
+			this.proxyClient = null;
+		}
+		if (this.proxy != null) {
+			this.proxy.stop();
+			this.proxy = null;
+		}
+	}
+
+	@Test
+	void pinnedRequestsAreServedFromTheStoreAcrossRestarts() throws Exception {
+		final String account = upstream.getTestingAccount(0).getAddress();
+		startProxy(0);
+		final BigInteger balance = this.proxyClient.ethGetBalance(account, FIRST_BLOCK).send().getBalance();
+		assertEquals(upstream.getWeb3j().ethGetBalance(account, FIRST_BLOCK).send().getBalance(), balance);
+		assertEquals(1, this.proxy.getCacheMisses());
+
+		assertEquals(balance, this.proxyClient.ethGetBalance(account, FIRST_BLOCK).send().getBalance());
+		assertEquals(1, this.proxy.getCacheHits());
+
+		// The store is persisted: a new proxy serves the same request without forwarding it.
+		stopProxy();
+		startProxy(0);
+		assertEquals(balance, this.proxyClient.ethGetBalance(account, FIRST_BLOCK).send().getBalance());
+		assertEquals(1, this.proxy.getCacheHits());
+		assertEquals(0, this.proxy.getCacheMisses());
+	}
+
+	@Test
+	void batchedRequestsAreResolvedFromTheStoreAndTheUpstreamNode() throws Exception {
+		final String firstAccount = upstream.getTestingAccount(1).getAddress();
+		final String secondAccount = upstream.getTestingAccount(2).getAddress();
+		startProxy(0);
+		this.proxyClient.ethGetBalance(firstAccount, FIRST_BLOCK).send();
+
+		final BatchResponse batchResponse = this.proxyClient.newBatch()
+			.add(this.proxyClient.ethGetBalance(firstAccount, FIRST_BLOCK))
+			.add(this.proxyClient.ethBlockNumber())
+			.add(this.proxyClient.ethGetBalance(secondAccount, FIRST_BLOCK))
+			.send();
+
+		assertEquals(3, batchResponse.getResponses().size());
+		assertEquals(upstream.getWeb3j().ethGetBalance(firstAccount, FIRST_BLOCK).send().getBalance(),
+			((EthGetBalance) batchResponse.getResponses().get(0)).getBalance());
+		assertEquals(upstream.getWeb3j().ethBlockNumber().send().getBlockNumber(),
+			((EthBlockNumber) batchResponse.getResponses().get(1)).getBlockNumber());
+		assertEquals(upstream.getWeb3j().ethGetBalance(secondAccount, FIRST_BLOCK).send().getBalance(),
+			((EthGetBalance) batchResponse.getResponses().get(2)).getBalance());
+		assertEquals(1, this.proxy.getCacheHits());
+		assertEquals(2, this.proxy.getCacheMisses());
+		assertEquals(1, this.proxy.getPassedThroughRequests());
+	}
+
+	@Test
+	void blocksAreOnlyStoredOnceFinalized() throws Exception {
+		final int confirmations = 16;
+		startProxy(confirmations);
+		final BigInteger head = upstream.getGanacheJsonRpc().getBlockNumber();
+		final DefaultBlockParameter headBlock = DefaultBlockParameter.valueOf(head);
+
+		final EthBlock.Block block = this.proxyClient.ethGetBlockByNumber(headBlock, false).send().getBlock();
+		assertEquals(head, block.getNumber());
+		this.proxyClient.ethGetBlockByNumber(headBlock, false).send();
+		assertEquals(0, this.proxy.getCacheHits(), "A block which may be reorganized must not be stored.");
+
+		upstream.mineBlocks(confirmations);
+		this.proxyClient.ethGetBlockByNumber(headBlock, false).send();
+		assertEquals(block.getHash(),
+			this.proxyClient.ethGetBlockByNumber(headBlock, false).send().getBlock().getHash());
+		assertEquals(1, this.proxy.getCacheHits());
+	}
+
+	@Test
+	void forkedContainerReadsTheUpstreamStateThroughTheProxy() throws Exception {
+		final String account = upstream.getTestingAccount(3).getAddress();
+		final BigInteger forkBlock = upstream.getGanacheJsonRpc().getBlockNumber();
+		final BigInteger upstreamBalance = upstream.getWeb3j()
+			.ethGetBalance(account, DefaultBlockParameter.valueOf(forkBlock)).send().getBalance();
+		startProxy(0);
+		try (GanacheContainer<?> forked = new GanacheContainer<>()) {
+			forked.withForkUrl(this.proxy.getForkUrl())
+				.withForkBlockNumber(DefaultBlockParameter.valueOf(forkBlock))
+				.start();
+			forked.waitUntilGanacheIsReady();
+			assertEquals(upstreamBalance,
+				forked.getWeb3j().ethGetBalance(account, DefaultBlockParameterName.LATEST).send().getBalance());
+		}
+		assertTrue(this.proxy.getCacheMisses() > 0, "The pinned requests of the fork must go through the proxy.");
+	}
+
+	private void startProxy(final int finalityConfirmations) {
+		this.proxy = new ForkCachingProxy(upstream.getNodeUri(), this.storeDirectory.resolve("fork.cache"),
+			finalityConfirmations);
+		this.proxy.start();
+		this.proxyClient = Web3j.build(new HttpService("http://localhost:" + this.proxy.getPort()));
+	}
+
+}
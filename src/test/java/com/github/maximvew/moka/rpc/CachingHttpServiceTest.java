@@ -0,0 +1,125 @@
+package com.github.maximvew.moka.rpc;
+
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.rpc.GanacheJsonRpc;
+import com.github.maximevw.moka.rpc.ResponseCache;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.maximvew.moka.GanacheTestSupport.awaitReceipt;
+import static com.github.maximvew.moka.GanacheTestSupport.startGanache;
+import static com.github.maximvew.moka.GanacheTestSupport.transfer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CachingHttpServiceTest {
+
+	private static final ResponseCache RESPONSE_CACHE = new ResponseCache(100);
+	private static GanacheContainer<?> ganache;
+	private static Web3j web3j;
+	private static GanacheJsonRpc ganacheJsonRpc;
+
+	@BeforeAll
+	static void startCachingGanache() {
+		ganache = startGanache(new GanacheContainer<>().withResponseCache(RESPONSE_CACHE));
+		web3j = ganache.getWeb3j();
+		ganacheJsonRpc = ganache.getGanacheJsonRpc();
+	}
+
+	@AfterAll
+	static void stopGanache() {
+		ganache.stop();
+	}
+
+	@Test
+	void immutableResponsesAreServedFromTheCache() throws Exception {
+		final TransactionReceipt receipt = sendAndWait();
+		final long initialHits = RESPONSE_CACHE.getHits();
+		final long initialMisses = RESPONSE_CACHE.getMisses();
+
+		final TransactionReceipt firstRead = web3j.ethGetTransactionReceipt(receipt.getTransactionHash()).send()
+			.getTransactionReceipt().orElseThrow();
+		final TransactionReceipt secondRead = web3j.ethGetTransactionReceipt(receipt.getTransactionHash()).send()
+			.getTransactionReceipt().orElseThrow();
+		assertEquals(firstRead, secondRead);
+		assertEquals(web3j.ethGetBlockByHash(receipt.getBlockHash(), false).send().getBlock().getNumber(),
+			web3j.ethGetBlockByHash(receipt.getBlockHash(), false).send().getBlock().getNumber());
+		// eth_call pinned to a block hash (EIP-1898).
+		final Map<String, String> call = Map.of("to", ganache.getTestingAccount(1).getAddress());
+		final Map<String, String> pinnedBlock = Map.of("blockHash", receipt.getBlockHash());
+		assertEquals(ganacheJsonRpc.send("eth_call", call, pinnedBlock).getResultAsString(),
+			ganacheJsonRpc.send("eth_call", call, pinnedBlock).getResultAsString());
+
+		// The receipt has already been cached when its batched polling found it.
+		assertEquals(initialMisses + 2, RESPONSE_CACHE.getMisses());
+		assertEquals(initialHits + 4, RESPONSE_CACHE.getHits());
+	}
+
+	@Test
+	void cacheableRequestsOfABatchAreServedFromTheCacheIndividually() {
+		final String hash = sendAndWait().getTransactionHash();
+		final String unknownHash = Numeric.toHexStringWithPrefixZeroPadded(BigInteger.ONE, 64);
+		final long initialHits = RESPONSE_CACHE.getHits();
+		final long initialMisses = RESPONSE_CACHE.getMisses();
+
+		final List<TransactionReceipt> firstReads = ganacheJsonRpc.getTransactionReceipts(List.of(hash, unknownHash));
+		final List<TransactionReceipt> secondReads = ganacheJsonRpc.getTransactionReceipts(List.of(unknownHash, hash));
+
+		assertEquals(hash, firstReads.get(0).getTransactionHash());
+		assertNull(firstReads.get(1));
+		assertNull(secondReads.get(0));
+		assertEquals(firstReads.get(0), secondReads.get(1));
+		// The receipt of the mined transaction has been cached by its batched polling, unlike the unknown one.
+		assertEquals(initialMisses + 2, RESPONSE_CACHE.getMisses());
+		assertEquals(initialHits + 2, RESPONSE_CACHE.getHits());
+	}
+
+	@Test
+	void receiptOfAPendingTransactionIsNotCached() throws Exception {
+		ganacheJsonRpc.stopMiner();
+		try {
+			final String hash = sendTransfer();
+			assertTrue(web3j.ethGetTransactionReceipt(hash).send().getTransactionReceipt().isEmpty());
+
+			ganacheJsonRpc.mine();
+			assertTrue(web3j.ethGetTransactionReceipt(hash).send().getTransactionReceipt().isPresent());
+		} finally {
+			ganacheJsonRpc.startMiner();
+		}
+	}
+
+	@Test
+	void revertingASnapshotInvalidatesTheCache() throws Exception {
+		final String snapshotId = ganacheJsonRpc.snapshot();
+		final TransactionReceipt receipt = sendAndWait();
+		web3j.ethGetTransactionReceipt(receipt.getTransactionHash()).send();
+		assertTrue(RESPONSE_CACHE.getSize() > 0);
+		final long initialInvalidations = RESPONSE_CACHE.getInvalidations();
+
+		assertTrue(ganacheJsonRpc.revert(snapshotId));
+
+		assertEquals(0, RESPONSE_CACHE.getSize());
+		assertEquals(initialInvalidations + 1, RESPONSE_CACHE.getInvalidations());
+		assertTrue(web3j.ethGetTransactionReceipt(receipt.getTransactionHash()).send().getTransactionReceipt()
+			.isEmpty(), "The reverted transaction must not be served from the cache.");
+	}
+
+	private static String sendTransfer() {
+		return transfer(ganache, ganache.getTestingAccount(0).getAddress(), ganache.getTestingAccount(1).getAddress(),
+			BigInteger.ONE);
+	}
+
+	private static TransactionReceipt sendAndWait() {
+		return awaitReceipt(ganache, sendTransfer());
+	}
+
+}
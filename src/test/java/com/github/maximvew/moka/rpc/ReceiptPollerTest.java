@@ -0,0 +1,101 @@
+package com.github.maximvew.moka.rpc;
+
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.rpc.GanacheJsonRpc;
+import com.github.maximevw.moka.rpc.ReceiptPoller;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.maximvew.moka.GanacheTestSupport.sharedGanache;
+import static com.github.maximvew.moka.GanacheTestSupport.transfer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReceiptPollerTest {
+
+	private static final int TRANSACTIONS = 20;
+
+	private static GanacheContainer<?> ganache;
+	private static GanacheJsonRpc ganacheJsonRpc;
+
+	@BeforeAll
+	static void initGanache() {
+		ganache = sharedGanache();
+		ganacheJsonRpc = ganache.getGanacheJsonRpc();
+	}
+
+	@AfterEach
+	void restartMiner() {
+		ganacheJsonRpc.startMiner();
+	}
+
+	@Test
+	void receiptsOfPendingTransactionsAreResolvedOnceMined() throws Exception {
+		ganacheJsonRpc.stopMiner();
+		final List<String> hashes = new ArrayList<>();
+		for (int i = 0; i < TRANSACTIONS; i++) {
+			hashes.add(sendTransfer());
+		}
+
+		final Map<String, CompletableFuture<TransactionReceipt>> receipts = ganache.awaitReceipts(hashes);
+		assertEquals(hashes, new ArrayList<>(receipts.keySet()));
+		assertTrue(receipts.values().stream().noneMatch(CompletableFuture::isDone),
+			"The transactions are not mined yet.");
+
+		final BigInteger blockNumber = ganacheJsonRpc.mine();
+		for (final String hash : hashes) {
+			final TransactionReceipt receipt = receipts.get(hash).get(10, TimeUnit.SECONDS);
+			assertEquals(hash, receipt.getTransactionHash());
+			assertEquals(blockNumber, receipt.getBlockNumber());
+		}
+	}
+
+	@Test
+	void cancellingAWaiterDoesNotAffectTheOtherWaiters() throws Exception {
+		ganacheJsonRpc.stopMiner();
+		final String hash = sendTransfer();
+		final CompletableFuture<TransactionReceipt> cancelledReceipt = ganache.awaitReceipts(List.of(hash)).get(hash);
+		final CompletableFuture<TransactionReceipt> awaitedReceipt = ganache.awaitReceipts(List.of(hash)).get(hash);
+
+		assertTrue(cancelledReceipt.cancel(true));
+		ganacheJsonRpc.mine();
+
+		assertEquals(hash, awaitedReceipt.get(10, TimeUnit.SECONDS).getTransactionHash());
+		assertTrue(cancelledReceipt.isCancelled());
+	}
+
+	@Test
+	void receiptOfAnUnknownTransactionFailsAfterTheMaximalWait() {
+		final ReceiptPoller receiptPoller = new ReceiptPoller(ganacheJsonRpc, Duration.ofMillis(100),
+			Duration.ofSeconds(1));
+		final String unknownHash = Numeric.toHexStringWithPrefixZeroPadded(BigInteger.ONE, 64);
+
+		final CompletableFuture<TransactionReceipt> receipt =
+			receiptPoller.await(List.of(unknownHash)).get(unknownHash);
+
+		final ExecutionException failure = assertThrows(ExecutionException.class,
+			() -> receipt.get(10, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalStateException.class, failure.getCause());
+		assertTrue(failure.getCause().getMessage().contains(unknownHash));
+	}
+
+	private static String sendTransfer() {
+		return transfer(ganache, ganache.getTestingAccount(0).getAddress(), ganache.getTestingAccount(1).getAddress(),
+			BigInteger.ONE);
+	}
+
+}
@@ -0,0 +1,120 @@
+package com.github.maximvew.moka.tx;
+
+import com.github.maximevw.moka.GanacheContainer;
+import com.github.maximevw.moka.entities.TestingAccount;
+import com.github.maximevw.moka.fixtures.ContractFixtures;
+import com.github.maximevw.moka.tx.LocalNonceTransactionManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.tx.TransactionManager;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.maximvew.moka.GanacheTestSupport.GAS_PRICE;
+import static com.github.maximvew.moka.GanacheTestSupport.TRANSFER_GAS_LIMIT;
+import static com.github.maximvew.moka.GanacheTestSupport.awaitReceipts;
+import static com.github.maximvew.moka.GanacheTestSupport.checkSent;
+import static com.github.maximvew.moka.GanacheTestSupport.sharedGanache;
+import static com.github.maximvew.moka.GanacheTestSupport.transfer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocalNonceTransactionManagerTest {
+
+	private static final int SENDERS = 8;
+	private static final int TRANSACTIONS_PER_SENDER = 5;
+	// Init code deploying a contract without code: STOP.
+	private static final String EMPTY_CONTRACT = "0x00";
+
+	private static GanacheContainer<?> ganache;
+
+	@BeforeAll
+	static void initGanache() {
+		ganache = sharedGanache();
+	}
+
+	@Test
+	void concurrentSendersFromTheSameAccountUseDistinctNonces() throws Exception {
+		final TestingAccount sender = ganache.getTestingAccount(0);
+		final String recipient = ganache.getTestingAccount(1).getAddress();
+		final TransactionManager transactionManager = sender.transactionManager();
+		assertInstanceOf(LocalNonceTransactionManager.class, transactionManager);
+		assertSame(transactionManager, sender.transactionManager());
+		final BigInteger initialNonce = getTransactionCount(sender.getAddress());
+
+		final ExecutorService executor = Executors.newFixedThreadPool(SENDERS);
+		final List<Future<EthSendTransaction>> responses = new ArrayList<>();
+		try {
+			for (int i = 0; i < SENDERS * TRANSACTIONS_PER_SENDER; i++) {
+				responses.add(executor.submit(() -> sender.transactionManager()
+					.sendTransaction(GAS_PRICE, TRANSFER_GAS_LIMIT, recipient, "", BigInteger.ONE)));
+			}
+			final List<String> hashes = new ArrayList<>();
+			for (final Future<EthSendTransaction> response : responses) {
+				hashes.add(checkSent(response.get(30, TimeUnit.SECONDS)));
+			}
+
+			awaitSuccessfulReceipts(hashes);
+			assertEquals(initialNonce.add(BigInteger.valueOf(responses.size())),
+				getTransactionCount(sender.getAddress()));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void nonceIsResynchronizedAfterATransactionSentWithAnotherManager() throws Exception {
+		final TestingAccount sender = ganache.getTestingAccount(2);
+		final String recipient = ganache.getTestingAccount(3).getAddress();
+		final TransactionManager transactionManager = sender.transactionManager();
+		final String first = send(transactionManager, recipient);
+
+		// Consumes the next nonce tracked locally by the transaction manager.
+		final String outOfBand = transfer(ganache, sender.getAddress(), recipient, BigInteger.ONE);
+
+		final String resent = send(transactionManager, recipient);
+		awaitSuccessfulReceipts(List.of(first, outOfBand, resent));
+	}
+
+	@Test
+	void nonceIsResynchronizedAfterTheChainIsRevertedToTheFixtures() throws Exception {
+		final TestingAccount sender = ganache.getTestingAccount(4);
+		final String recipient = ganache.getTestingAccount(5).getAddress();
+		ContractFixtures.of(ganache).deployOnce(ganache.getTestingAccount(6), EMPTY_CONTRACT);
+		final BigInteger fixturesNonce = getTransactionCount(sender.getAddress());
+		awaitSuccessfulReceipts(List.of(send(sender.transactionManager(), recipient)));
+
+		// Discards the transaction sent since the fixtures snapshot, and the nonce it consumed.
+		ContractFixtures.of(ganache).deployOnce(ganache.getTestingAccount(6), EMPTY_CONTRACT);
+		assertEquals(fixturesNonce, getTransactionCount(sender.getAddress()));
+
+		awaitSuccessfulReceipts(List.of(send(sender.transactionManager(), recipient)));
+		assertEquals(fixturesNonce.add(BigInteger.ONE), getTransactionCount(sender.getAddress()));
+	}
+
+	private static String send(final TransactionManager transactionManager, final String recipient)
+		throws Exception {
+		return checkSent(transactionManager.sendTransaction(GAS_PRICE, TRANSFER_GAS_LIMIT, recipient, "",
+			BigInteger.ONE));
+	}
+
+	private static BigInteger getTransactionCount(final String address) throws Exception {
+		return ganache.getWeb3j().ethGetTransactionCount(address, DefaultBlockParameterName.PENDING).send()
+			.getTransactionCount();
+	}
+
+	private static void awaitSuccessfulReceipts(final List<String> hashes) {
+		awaitReceipts(ganache, hashes).forEach(receipt -> assertTrue(receipt.isStatusOK()));
+	}
+
+}